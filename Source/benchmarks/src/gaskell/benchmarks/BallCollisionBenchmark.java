@@ -0,0 +1,130 @@
+package gaskell.benchmarks;
+
+import gaskell.sim.BallStateStore;
+import gaskell.sim.ContactSolver;
+import gaskell.sim.NeighbourList;
+import gaskell.sim.PhysicsWorld;
+import gaskell.sim.TableGeometry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * @author Connor Gaskell
+ * @description Benchmarks resolving ball to ball collisions with the ContactSolver, as the PhysicsWorld does in each substep.
+ *              The balls of the rack are packed within the contact slop of each other, so every neighbouring pair is a contact, and
+ *              every ball is pushed towards the middle of the rack, so the rack is pressed together the same way on every solve.
+ *              Each operation puts the velocities and spin back as they were and solves every contact of the rack, solveContacts()
+ *              forgets the warm start first, solveContactsWarm() starts the next step instead, as the PhysicsWorld does, so each solve
+ *              starts from the impulses of the one before. JMH reports the total passes over the measured iterations as "passes",
+ *              divided by the operations it is the passes per solve, run with -p maxIterations=1000 to see how many each needs to converge
+ *              rather than the game's limit.
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class BallCollisionBenchmark {
+
+    @Param({"16", "64", "256"})
+    public int ballCount;
+
+    // Maximum number of passes over the contacts, the game's own by default
+    @Param({"8"})
+    public int maxIterations;
+
+    private BallStateStore balls;
+    private NeighbourList neighbourList;
+    private ContactSolver contactSolver;
+    private float diameter;
+
+    // Velocity and spin of every ball before the contacts are solved
+    private float[] velX, velY, velZ, spinX, spinY, spinZ;
+
+    @Setup
+    public void setup() {
+        PhysicsWorld world = BenchmarkTables.rack(ballCount);
+        TableGeometry table = world.getTable();
+        balls = world.getBalls();
+        neighbourList = world.getNeighbourList();
+        contactSolver = new ContactSolver(maxIterations);
+        diameter = table.ballRadius * 2;
+
+        /*
+         * Push every ball of the rack towards its middle so the contacts have something to hold apart, the white ball stays still
+         */
+        float middleX = 0, middleZ = 0;
+        for(int i = 0; i < ballCount - 1; i++) {
+            middleX += balls.posX[i];
+            middleZ += balls.posZ[i];
+        }
+        middleX /= ballCount - 1;
+        middleZ /= ballCount - 1;
+        for(int i = 0; i < ballCount - 1; i++) {
+            balls.setVelocity(i, 0.001f * (middleX - balls.posX[i]), 0.0f, 0.001f * (middleZ - balls.posZ[i]));
+        }
+        neighbourList.update(balls);
+
+        velX = balls.velX.clone();
+        velY = balls.velY.clone();
+        velZ = balls.velZ.clone();
+        spinX = balls.spinX.clone();
+        spinY = balls.spinY.clone();
+        spinZ = balls.spinZ.clone();
+    }
+
+    /*
+     * Solves every contact of the rack from the same velocities without a warm start, returns the number of contacts which pushed their balls apart
+     */
+    @Benchmark
+    public int solveContacts(Passes passes) {
+        restore();
+        contactSolver.clearWarmStart();
+        return solve(passes);
+    }
+
+    /*
+     * Solves every contact of the rack from the same velocities, warm started from the impulses of the last solve as on consecutive steps
+     */
+    @Benchmark
+    public int solveContactsWarm(Passes passes) {
+        restore();
+        contactSolver.nextStep();
+        return solve(passes);
+    }
+
+    /*
+     * Puts the velocities and spin of every ball back as they were before the contacts were solved
+     */
+    private void restore() {
+        System.arraycopy(spinX, 0, balls.spinX, 0, ballCount);
+        System.arraycopy(spinY, 0, balls.spinY, 0, ballCount);
+        System.arraycopy(spinZ, 0, balls.spinZ, 0, ballCount);
+        for(int i = 0; i < ballCount; i++) {
+            balls.setVelocity(i, velX[i], velY[i], velZ[i]);
+        }
+    }
+
+    private int solve(Passes passes) {
+        int pushed = contactSolver.solve(balls, neighbourList, diameter, ContactSolver.CONTACT_SLOP);
+        passes.passes += contactSolver.getIterations();
+        return pushed;
+    }
+
+    /*
+     * Passes over the contacts taken by the solves, reported by JMH next to the score
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Passes {
+
+        public long passes;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            passes = 0;
+        }
+
+    }
+
+}
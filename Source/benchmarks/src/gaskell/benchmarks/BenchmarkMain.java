@@ -0,0 +1,35 @@
+package gaskell.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+ * @author Connor Gaskell
+ * @description Runs the benchmarks with the GC profiler, which adds the bytes allocated per operation (gc.alloc.rate.norm) to the
+ *              operations per second of each benchmark. An optional argument selects the benchmarks to run by a regular expression,
+ *              e.g. "Break" for only the BreakBenchmark.
+ *              The benchmark module needs the JMH library (jmh-core and jmh-generator-annprocess, 1.37) set up in IntelliJ as the "jmh"
+ *              project library, with annotation processing turned on so the benchmark classes are generated.
+ * References: https://github.com/openjdk/jmh
+ */
+
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "gaskell.benchmarks.*";
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .warmupIterations(3)
+                .measurementIterations(5)
+                .forks(1)
+                .build();
+
+        new Runner(options).run();
+    }
+
+}
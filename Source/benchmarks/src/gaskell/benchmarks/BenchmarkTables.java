@@ -0,0 +1,56 @@
+package gaskell.benchmarks;
+
+import gaskell.sim.BallStateStore;
+import gaskell.sim.PhysicsWorld;
+import gaskell.sim.TableGeometry;
+
+/*
+ * @author Connor Gaskell
+ * @description Builds the worlds the benchmarks run on. The standard table only fits the standard rack of 16 balls, so for a larger
+ *              ball count the table is grown with the rack, keeping the same amount of space around the rack as the standard table.
+ */
+
+final class BenchmarkTables {
+
+    private BenchmarkTables() {
+    }
+
+    /*
+     * The standard table, scaled up so a rack of the passed number of balls fits onto it
+     */
+    static TableGeometry table(int ballCount) {
+        TableGeometry standard = TableGeometry.standard();
+        float scale = (float) Math.max(1.0, Math.sqrt(ballCount / 16.0));
+
+        float[] pocketX = standard.pocketX.clone(), pocketZ = standard.pocketZ.clone();
+        for(int p = 0; p < pocketX.length; p++) {
+            pocketX[p] *= scale;
+            pocketZ[p] *= scale;
+        }
+        return new TableGeometry(standard.halfLength * scale, standard.halfWidth * scale, standard.ballRadius, standard.pocketRadius, pocketX, pocketZ);
+    }
+
+    /*
+     * A world with a triangle of ballCount - 1 balls, the point facing the white ball, which is added last and placed on the
+     * other half of the table. Returns the world, the white ball is ballCount - 1.
+     */
+    static PhysicsWorld rack(int ballCount) {
+        TableGeometry table = table(ballCount);
+        PhysicsWorld world = new PhysicsWorld(table);
+
+        // Rows are 1.75 radii apart and balls within a row 2.02 radii apart, so the triangle is packed without touching
+        float rowSpacing = table.ballRadius * 1.75f, ballSpacing = table.ballRadius * 2.02f;
+        int placed = 0;
+        for(int row = 0; placed < ballCount - 1; row++) {
+            for(int k = 0; k <= row && placed < ballCount - 1; k++) {
+                float z = (k - row * 0.5f) * ballSpacing;
+                world.addBall(table.halfLength * 0.35f + row * rowSpacing, 0.0f, z, BallStateStore.KIND_SOLID, placed + 1);
+                placed++;
+            }
+        }
+
+        world.addBall(-table.halfLength * 0.7f, 0.0f, 0.0f, BallStateStore.KIND_CUE, 0);
+        return world;
+    }
+
+}
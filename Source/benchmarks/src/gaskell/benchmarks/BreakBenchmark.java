@@ -0,0 +1,48 @@
+package gaskell.benchmarks;
+
+import gaskell.sim.PhysicsWorld;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * @author Connor Gaskell
+ * @description Benchmarks a full break, the white ball is hit into the rack at full power and the world is stepped until every ball has stopped.
+ *              The racked world is copied before each break, the copy is a few array copies and is small next to the break itself.
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class BreakBenchmark {
+
+    // Most ticks a break is stepped for
+    private static final int MAX_TICKS = 20000;
+
+    @Param({"16", "64", "256"})
+    public int ballCount;
+
+    // The racked world, never stepped
+    private PhysicsWorld racked;
+
+    // The world each break is played on
+    private PhysicsWorld world;
+
+    @Setup
+    public void setup() {
+        racked = BenchmarkTables.rack(ballCount);
+        world = new PhysicsWorld(racked.getTable());
+        world.copyFrom(racked);
+    }
+
+    /*
+     * Breaks and returns the number of ticks until the balls stopped
+     */
+    @Benchmark
+    public int rackBreak() {
+        world.copyFrom(racked);
+        world.strike(ballCount - 1, 0.1f, 0.002f);
+        return world.stepUntilRest(MAX_TICKS);
+    }
+
+}
@@ -0,0 +1,93 @@
+package gaskell.benchmarks;
+
+import gaskell.scene.objects.GameObject;
+import org.openjdk.jmh.annotations.*;
+
+import javax.media.j3d.Transform3D;
+import javax.vecmath.Quat4d;
+import javax.vecmath.Vector3f;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * @author Connor Gaskell
+ * @description Benchmarks the scene graph side of the balls, reading and writing the transforms of GameObjects.
+ *              The GameObjects are not attached to a live universe, so this measures the Transform3D work and not the renderer.
+ *              Java3D needs a display to create any scene graph node, so unlike the other benchmarks this one can not run on a headless machine.
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class GameObjectBenchmark {
+
+    @Param({"16", "64", "256"})
+    public int ballCount;
+
+    private GameObject[] gameObjects;
+
+    // Reused vector for getPosition(Vector3f)
+    private final Vector3f position = new Vector3f();
+
+    // A small rotation about the Y-Axis, as applied to a rolling ball each frame
+    private final Quat4d rotation = new Quat4d(0.0, Math.sin(0.005), 0.0, Math.cos(0.005));
+
+    @Setup
+    public void setup() {
+        gameObjects = new GameObject[ballCount];
+        for(int i = 0; i < ballCount; i++) {
+            gameObjects[i] = new GameObject() { };
+
+            Transform3D transform3D = new Transform3D();
+            transform3D.set(new Vector3f(0.19f * i, 0.0f, 0.0f));
+            gameObjects[i].position.setTransform(transform3D);
+        }
+    }
+
+    /*
+     * Tests each GameObject against the next, each pair is just under a diameter apart so every test intersects
+     */
+    @Benchmark
+    public int intersects() {
+        int hits = 0;
+        for(int i = 0; i + 1 < ballCount; i++) {
+            if(gameObjects[i].intersects(gameObjects[i + 1])) hits++;
+        }
+        return hits;
+    }
+
+    /*
+     * Reads the position of every GameObject into a reused vector
+     */
+    @Benchmark
+    public float getPosition() {
+        float sum = 0;
+        for(int i = 0; i < ballCount; i++) {
+            sum += gameObjects[i].getPosition(position).x;
+        }
+        return sum;
+    }
+
+    /*
+     * Reads the position of every GameObject into a new vector, for comparison with getPosition()
+     */
+    @Benchmark
+    public float getPositionAllocating() {
+        float sum = 0;
+        for(int i = 0; i < ballCount; i++) {
+            sum += gameObjects[i].getPosition().x;
+        }
+        return sum;
+    }
+
+    /*
+     * Adds the rotation to every GameObject
+     */
+    @Benchmark
+    public GameObject setRotation() {
+        for(int i = 0; i < ballCount; i++) {
+            gameObjects[i].setRotation(rotation);
+        }
+        return gameObjects[0];
+    }
+
+}
@@ -0,0 +1,185 @@
+package gaskell.benchmarks;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * @author Connor Gaskell
+ * @description The small amount of JSON the ScenarioSuite needs, to avoid adding a library to the project for it.
+ *              parse() reads objects (as a Map), arrays (as a List), strings, numbers (as a Double), true, false and null.
+ *              It is only meant for the suite's own results and baselines, so errors give the position but little else.
+ */
+
+final class Json {
+
+    // The text being parsed and the position of the next character
+    private final String text;
+    private int position = 0;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /*
+     * Parses a JSON value, throwing an IllegalArgumentException if the text is not valid JSON
+     */
+    static Object parse(String text) {
+        Json json = new Json(text);
+        Object value = json.value();
+        json.skipWhitespace();
+        if(json.position != text.length()) throw json.error("Unexpected text after the value");
+        return value;
+    }
+
+    /*
+     * A string as a quoted JSON string
+     */
+    static String quote(String value) {
+        StringBuilder out = new StringBuilder(value.length() + 2).append('"');
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if(c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if(c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    private Object value() {
+        skipWhitespace();
+        if(position == text.length()) throw error("Unexpected end of the text");
+
+        char c = text.charAt(position);
+        switch(c) {
+            case '{': return object();
+            case '[': return array();
+            case '"': return string();
+            case 't': return literal("true", Boolean.TRUE);
+            case 'f': return literal("false", Boolean.FALSE);
+            case 'n': return literal("null", null);
+            default: return number();
+        }
+    }
+
+    private Map<String, Object> object() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        position++;
+        skipWhitespace();
+        if(peek() == '}') {
+            position++;
+            return object;
+        }
+
+        while(true) {
+            skipWhitespace();
+            if(peek() != '"') throw error("Expected a name");
+            String name = string();
+            skipWhitespace();
+            expect(':');
+            object.put(name, value());
+            skipWhitespace();
+            if(peek() == ',') {
+                position++;
+            } else {
+                expect('}');
+                return object;
+            }
+        }
+    }
+
+    private List<Object> array() {
+        List<Object> array = new ArrayList<>();
+        position++;
+        skipWhitespace();
+        if(peek() == ']') {
+            position++;
+            return array;
+        }
+
+        while(true) {
+            array.add(value());
+            skipWhitespace();
+            if(peek() == ',') {
+                position++;
+            } else {
+                expect(']');
+                return array;
+            }
+        }
+    }
+
+    private String string() {
+        StringBuilder out = new StringBuilder();
+        position++;
+        while(true) {
+            if(position >= text.length()) throw error("Unterminated string");
+            char c = text.charAt(position++);
+            if(c == '"') return out.toString();
+            if(c != '\\') {
+                out.append(c);
+                continue;
+            }
+
+            if(position >= text.length()) throw error("Unterminated string");
+            char escaped = text.charAt(position++);
+            switch(escaped) {
+                case 'n': out.append('\n'); break;
+                case 't': out.append('\t'); break;
+                case 'r': out.append('\r'); break;
+                case 'b': out.append('\b'); break;
+                case 'f': out.append('\f'); break;
+                case 'u':
+                    if(position + 4 > text.length()) throw error("Bad unicode escape");
+                    out.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    position += 4;
+                    break;
+                default: out.append(escaped);
+            }
+        }
+    }
+
+    private Double number() {
+        int start = position;
+        while(position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+            position++;
+        }
+        if(start == position) throw error("Unexpected character '" + text.charAt(position) + "'");
+        try {
+            return Double.valueOf(text.substring(start, position));
+        } catch(NumberFormatException e) {
+            throw error("Bad number");
+        }
+    }
+
+    private Object literal(String word, Object value) {
+        if(!text.startsWith(word, position)) throw error("Expected " + word);
+        position += word.length();
+        return value;
+    }
+
+    private void expect(char c) {
+        if(peek() != c) throw error("Expected '" + c + "'");
+        position++;
+    }
+
+    private char peek() {
+        return position < text.length() ? text.charAt(position) : 0;
+    }
+
+    private void skipWhitespace() {
+        while(position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position);
+    }
+
+}
@@ -0,0 +1,57 @@
+package gaskell.benchmarks;
+
+import gaskell.sim.BallStateStore;
+import gaskell.sim.PhysicsWorld;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * @author Connor Gaskell
+ * @description Benchmarks applying friction to and moving every ball, what used to be Movement.applyFriction() and Movement.moveObject().
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class MovementBenchmark {
+
+    @Param({"16", "64", "256"})
+    public int ballCount;
+
+    private PhysicsWorld world;
+    private BallStateStore balls;
+
+    @Setup
+    public void setup() {
+        world = BenchmarkTables.rack(ballCount);
+        balls = world.getBalls();
+    }
+
+    /*
+     * Applies friction to every ball, the velocity is set first each time so the balls never come to rest
+     */
+    @Benchmark
+    public float applyFriction() {
+        float[] velX = balls.velX, velZ = balls.velZ;
+        for(int i = 0; i < ballCount; i++) {
+            velX[i] = 0.05f;
+            velZ[i] = -0.05f;
+            world.applyFriction(i);
+        }
+        return velX[0];
+    }
+
+    /*
+     * Moves every ball forward and then back by half a step, so the rack does not drift off the table between operations
+     */
+    @Benchmark
+    public float moveObject() {
+        for(int i = 0; i < ballCount; i++) {
+            world.moveObject(i, 0.5f);
+            world.moveObject(i, -0.5f);
+        }
+        return balls.posX[0];
+    }
+
+}
@@ -0,0 +1,57 @@
+package gaskell.benchmarks;
+
+/*
+ * @author Connor Gaskell
+ * @description A workload run end to end by the ScenarioSuite, e.g. a break or a long run of shots, as opposed to the single operations
+ *              timed by the JMH benchmarks. setUp() builds the table once and restart() puts it back to the start before each run,
+ *              neither is measured, then step() is called and timed once per step until it returns false or the maximum number of
+ *              steps is reached.
+ *              The scenario is first run (and restarted) for its warm up steps on the same table, which warms up the JIT and grows
+ *              any arrays in the world to their working size, and is thrown away.
+ */
+
+abstract class Scenario {
+
+    // Name of the scenario in the results and the baseline
+    private final String name;
+
+    // Most steps measured, and most steps taken by the warm up run
+    private final int maxSteps, warmUpSteps;
+
+    /*
+     * Constructor passes the name, the most steps measured and the most steps taken to warm up
+     */
+    Scenario(String name, int maxSteps, int warmUpSteps) {
+        this.name = name;
+        this.maxSteps = maxSteps;
+        this.warmUpSteps = warmUpSteps;
+    }
+
+    /*
+     * Builds the table the scenario runs on, called once
+     */
+    abstract void setUp();
+
+    /*
+     * Puts the table back as it was at the start of the scenario, called before each run
+     */
+    abstract void restart();
+
+    /*
+     * Takes one step of the scenario, including any shot taken on that step. Returns false once the scenario has finished.
+     */
+    abstract boolean step();
+
+    String getName() {
+        return name;
+    }
+
+    int getMaxSteps() {
+        return maxSteps;
+    }
+
+    int getWarmUpSteps() {
+        return warmUpSteps;
+    }
+
+}
@@ -0,0 +1,172 @@
+package gaskell.benchmarks;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/*
+ * @author Connor Gaskell
+ * @description The measurements of one run of a Scenario: steps per second, the median (p50) and 99th percentile (p99) time of a step,
+ *              the bytes allocated per step and the number of garbage collections during the run, or the median of each over several runs.
+ *              Each metric knows whether higher or lower is better, so a result can be checked against the baseline result of the same scenario.
+ */
+
+class ScenarioResult {
+
+    /*
+     * Names of the metrics in the JSON, the first is better higher and the rest are better lower
+     */
+    static final String STEPS_PER_SECOND = "stepsPerSecond";
+    static final String P50_MICROS = "p50Micros";
+    static final String P99_MICROS = "p99Micros";
+    static final String ALLOCATED_BYTES_PER_STEP = "allocatedBytesPerStep";
+    static final String GC_COUNT = "gcCount";
+
+    static final String[] METRICS = {STEPS_PER_SECOND, P50_MICROS, P99_MICROS, ALLOCATED_BYTES_PER_STEP, GC_COUNT};
+
+    // Allocation and GC counts below these are not treated as a regression, so a baseline of 0 allows for a stray byte or collection
+    private static final double ALLOCATION_SLACK = 1.0, GC_SLACK = 1.0;
+
+    // Step times within this many microseconds of the baseline are not a regression, reading System.nanoTime() itself takes tens of
+    // nanoseconds, so a step of a tenth of a microsecond (e.g. idle-aiming) moves by a whole timer read run to run
+    private static final double TIME_SLACK_MICROS = 0.1;
+
+    // Name of the scenario
+    private final String name;
+
+    // Number of steps measured
+    private final int steps;
+
+    // Value of each metric by name, in the order of METRICS
+    private final Map<String, Double> metrics = new LinkedHashMap<>();
+
+    /*
+     * Constructor passes the scenario name, the number of steps and each metric
+     */
+    ScenarioResult(String name, int steps, double stepsPerSecond, double p50Micros, double p99Micros, double allocatedBytesPerStep, double gcCount) {
+        this.name = name;
+        this.steps = steps;
+        metrics.put(STEPS_PER_SECOND, stepsPerSecond);
+        metrics.put(P50_MICROS, p50Micros);
+        metrics.put(P99_MICROS, p99Micros);
+        metrics.put(ALLOCATED_BYTES_PER_STEP, allocatedBytesPerStep);
+        metrics.put(GC_COUNT, gcCount);
+    }
+
+    /*
+     * Works out the result from the time of each step in nanoseconds (only the first steps entries are used), the bytes allocated
+     * and the garbage collections over the run
+     */
+    static ScenarioResult of(String name, long[] stepNanos, int steps, long allocatedBytes, long gcCount) {
+        long[] sorted = Arrays.copyOf(stepNanos, steps);
+        Arrays.sort(sorted);
+
+        long total = 0;
+        for(long nanos : sorted) {
+            total += nanos;
+        }
+
+        double stepsPerSecond = total == 0 ? 0 : steps / (total / 1e9);
+        return new ScenarioResult(name, steps, stepsPerSecond, percentile(sorted, 0.5) / 1e3, percentile(sorted, 0.99) / 1e3,
+                steps == 0 ? 0 : (double) allocatedBytes / steps, gcCount);
+    }
+
+    /*
+     * The median of each metric over several runs of the same scenario, so one run disturbed by the machine doesn't decide the result
+     */
+    static ScenarioResult median(List<ScenarioResult> runs) {
+        double[] values = new double[runs.size()];
+        double[] medians = new double[METRICS.length];
+        for(int m = 0; m < METRICS.length; m++) {
+            for(int r = 0; r < values.length; r++) {
+                values[r] = runs.get(r).get(METRICS[m]);
+            }
+            Arrays.sort(values);
+            int middle = values.length / 2;
+            medians[m] = values.length % 2 == 1 ? values[middle] : (values[middle - 1] + values[middle]) / 2;
+        }
+
+        ScenarioResult first = runs.get(0);
+        return new ScenarioResult(first.name, first.steps, medians[0], medians[1], medians[2], medians[3], medians[4]);
+    }
+
+    /*
+     * Nearest rank percentile of sorted values
+     */
+    private static long percentile(long[] sorted, double fraction) {
+        if(sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank))];
+    }
+
+    /*
+     * Reads a result from its JSON object
+     */
+    static ScenarioResult fromJson(Map<String, Object> json) {
+        return new ScenarioResult((String) json.get("name"), ((Number) json.get("steps")).intValue(), number(json, STEPS_PER_SECOND),
+                number(json, P50_MICROS), number(json, P99_MICROS), number(json, ALLOCATED_BYTES_PER_STEP), number(json, GC_COUNT));
+    }
+
+    private static double number(Map<String, Object> json, String metric) {
+        Object value = json.get(metric);
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+    }
+
+    /*
+     * Writes the result as a JSON object
+     */
+    void toJson(StringBuilder out) {
+        out.append("{\"name\": ").append(Json.quote(name)).append(", \"steps\": ").append(steps);
+        for(Map.Entry<String, Double> metric : metrics.entrySet()) {
+            out.append(", ").append(Json.quote(metric.getKey())).append(": ").append(String.format(Locale.ROOT, "%.3f", metric.getValue()));
+        }
+        out.append('}');
+    }
+
+    /*
+     * Compares each metric to the baseline, appending a line to the report for each one which is worse by more than its tolerance
+     * (a fraction, e.g. 0.1 for 10%). Metrics missing from the baseline are skipped. Returns the number of regressions.
+     */
+    int compare(ScenarioResult baseline, Map<String, Double> tolerances, StringBuilder report) {
+        int regressions = 0;
+        for(String metric : METRICS) {
+            double value = metrics.get(metric), base = baseline.metrics.get(metric), tolerance = tolerances.get(metric);
+            if(Double.isNaN(base)) continue;
+
+            boolean regressed;
+            if(metric.equals(STEPS_PER_SECOND)) {
+                regressed = value < base * (1 - tolerance);
+            } else if(metric.equals(ALLOCATED_BYTES_PER_STEP)) {
+                regressed = value > base * (1 + tolerance) + ALLOCATION_SLACK;
+            } else if(metric.equals(GC_COUNT)) {
+                regressed = value > base * (1 + tolerance) + GC_SLACK;
+            } else if(metric.equals(P50_MICROS) || metric.equals(P99_MICROS)) {
+                regressed = value > base * (1 + tolerance) + TIME_SLACK_MICROS;
+            } else {
+                regressed = value > base * (1 + tolerance);
+            }
+
+            if(regressed) {
+                regressions++;
+                report.append(name).append(' ').append(metric).append(": ").append(String.format(Locale.ROOT, "%.3f", value))
+                        .append(" against a baseline of ").append(String.format(Locale.ROOT, "%.3f", base)).append('\n');
+            }
+        }
+        return regressions;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getSteps() {
+        return steps;
+    }
+
+    double get(String metric) {
+        return metrics.get(metric);
+    }
+
+}
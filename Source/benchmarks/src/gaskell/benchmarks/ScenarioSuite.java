@@ -0,0 +1,234 @@
+package gaskell.benchmarks;
+
+import gaskell.sim.PhysicsWorld;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/*
+ * @author Connor Gaskell
+ * @description Runs the Scenarios end to end without a display and reports, for each, the steps per second, the p50 and p99 step time,
+ *              the bytes allocated per step and the garbage collections, as JSON. With a baseline (the JSON of an earlier run) every
+ *              metric is compared against it and the suite exits with 1 if any is worse by more than the tolerance, so a change which
+ *              slows the table down fails before it ships.
+ *              Each scenario is measured over several runs (RUNS, or --runs) and every metric is the median of the runs, a single run
+ *              gives too few slow steps for a steady p99, so one run disturbed by the machine could fail the check on its own.
+ *              The stored baseline is benchmarks/scenario-baseline.json, timings depend on the machine, so the baseline should be
+ *              written again (--out) on the machine which runs the check. The tolerance (a fraction, e.g. 0.25 for 25%) is read
+ *              from the baseline's "tolerance", a metric can have its own in "tolerances" (e.g. a looser one for p99, which is the
+ *              noisiest), and --tolerance overrides both for every metric.
+ *              Run with: java -cp <benchmarks, main classes and jmh> gaskell.benchmarks.ScenarioSuite
+ *                        [--baseline file] [--out file] [--tolerance fraction] [--runs count] [--only regex]
+ */
+
+public class ScenarioSuite {
+
+    // Tolerance used when neither the baseline nor the command line give one, timings of whole scenarios vary by a few percent run to run
+    private static final double DEFAULT_TOLERANCE = 0.25;
+
+    // Number of measured runs of each scenario when the command line doesn't give one, odd so the median is one of the runs
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws IOException {
+        Path baselinePath = null, outPath = null;
+        Double tolerance = null;
+        String only = ".*";
+        int runs = RUNS;
+        for(int a = 0; a < args.length; a++) {
+            switch(args[a]) {
+                case "--baseline": baselinePath = Paths.get(args[++a]); break;
+                case "--out": outPath = Paths.get(args[++a]); break;
+                case "--tolerance": tolerance = Double.parseDouble(args[++a]); break;
+                case "--runs": runs = Integer.parseInt(args[++a]); break;
+                case "--only": only = args[++a]; break;
+                default:
+                    System.out.println("Usage: ScenarioSuite [--baseline file] [--out file] [--tolerance fraction] [--runs count] [--only regex]");
+                    System.exit(2);
+            }
+        }
+
+        /*
+         * Run each scenario
+         */
+        List<ScenarioResult> results = new ArrayList<>();
+        for(Scenario scenario : Scenarios.standard()) {
+            if(!scenario.getName().matches(only)) continue;
+
+            ScenarioResult result = run(scenario, runs);
+            results.add(result);
+            System.out.println(String.format(Locale.ROOT, "%-14s %9d steps %12.0f steps/s  p50 %9.2f us  p99 %9.2f us  %8.2f B/step  %3.0f GCs",
+                    result.getName(), result.getSteps(), result.get(ScenarioResult.STEPS_PER_SECOND), result.get(ScenarioResult.P50_MICROS),
+                    result.get(ScenarioResult.P99_MICROS), result.get(ScenarioResult.ALLOCATED_BYTES_PER_STEP), result.get(ScenarioResult.GC_COUNT)));
+        }
+
+        /*
+         * Find the tolerance of each metric, then write the results as JSON with the tolerances so the output can be stored as the next baseline
+         */
+        Map<String, Object> baseline = baselinePath != null ? readObject(baselinePath) : null;
+        double usedTolerance = tolerance != null ? tolerance : DEFAULT_TOLERANCE;
+        if(tolerance == null && baseline != null && baseline.get("tolerance") instanceof Number) usedTolerance = ((Number) baseline.get("tolerance")).doubleValue();
+
+        Map<String, Double> tolerances = new LinkedHashMap<>();
+        for(String metric : ScenarioResult.METRICS) {
+            tolerances.put(metric, usedTolerance);
+        }
+        if(tolerance == null && baseline != null && baseline.get("tolerances") instanceof Map) {
+            for(Map.Entry<?, ?> entry : ((Map<?, ?>) baseline.get("tolerances")).entrySet()) {
+                if(tolerances.containsKey(entry.getKey()) && entry.getValue() instanceof Number) {
+                    tolerances.put((String) entry.getKey(), ((Number) entry.getValue()).doubleValue());
+                }
+            }
+        }
+
+        String json = toJson(results, usedTolerance, tolerances);
+        if(outPath != null) {
+            Files.write(outPath, json.getBytes(StandardCharsets.UTF_8));
+            System.out.println("Results written to " + outPath);
+        } else {
+            System.out.println(json);
+        }
+
+        if(baseline == null) return;
+
+        /*
+         * Compare against the baseline, a scenario missing from the baseline is reported but does not fail
+         */
+        Map<String, ScenarioResult> baselineResults = new HashMap<>();
+        for(Object entry : (List<?>) baseline.get("scenarios")) {
+            @SuppressWarnings("unchecked")
+            ScenarioResult result = ScenarioResult.fromJson((Map<String, Object>) entry);
+            baselineResults.put(result.getName(), result);
+        }
+
+        StringBuilder report = new StringBuilder();
+        int regressions = 0;
+        for(ScenarioResult result : results) {
+            ScenarioResult base = baselineResults.get(result.getName());
+            if(base == null) {
+                System.out.println("No baseline for " + result.getName());
+                continue;
+            }
+            regressions += result.compare(base, tolerances, report);
+        }
+
+        if(regressions > 0) {
+            System.out.print(regressions + " metric(s) regressed by more than their tolerance " + tolerances + ":\n" + report);
+            System.exit(1);
+        }
+        System.out.println("No regressions against " + baselinePath + " (tolerances " + tolerances + ")");
+    }
+
+    /*
+     * Sets up the scenario and runs it to warm up, restarting it until it has taken the warm up steps, then measures the passed
+     * number of runs, restarting it before each, and returns the median of them
+     */
+    static ScenarioResult run(Scenario scenario, int runs) {
+        scenario.setUp();
+        int warmUp = 0;
+        while(warmUp < scenario.getWarmUpSteps()) {
+            scenario.restart();
+            int start = warmUp;
+            while(warmUp < scenario.getWarmUpSteps() && scenario.step()) {
+                warmUp++;
+            }
+
+            // A scenario which takes no steps can not be warmed up
+            if(warmUp == start) break;
+        }
+
+        long[] stepNanos = new long[scenario.getMaxSteps()];
+        List<ScenarioResult> results = new ArrayList<>();
+        for(int r = 0; r < Math.max(1, runs); r++) {
+            results.add(measure(scenario, stepNanos));
+        }
+        return ScenarioResult.median(results);
+    }
+
+    /*
+     * Restarts the scenario and measures one run of it, timing each step into stepNanos
+     */
+    private static ScenarioResult measure(Scenario scenario, long[] stepNanos) {
+        scenario.restart();
+
+        /*
+         * The GC count is read outside the allocation counter, reading it allocates
+         */
+        long gcBefore = gcCount();
+        com.sun.management.ThreadMXBean allocationBean = allocationBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = allocationBean != null ? allocationBean.getThreadAllocatedBytes(threadId) : 0;
+
+        int steps = 0;
+        while(steps < stepNanos.length) {
+            long start = System.nanoTime();
+            boolean running = scenario.step();
+            long end = System.nanoTime();
+            if(!running) break;
+            stepNanos[steps++] = end - start;
+        }
+
+        long allocated = allocationBean != null ? allocationBean.getThreadAllocatedBytes(threadId) - allocatedBefore : 0;
+        long gcs = gcCount() - gcBefore;
+        return ScenarioResult.of(scenario.getName(), stepNanos, steps, allocated, gcs);
+    }
+
+    /*
+     * The HotSpot ThreadMXBean for the bytes allocated by a thread, or null on a JVM without it
+     */
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        return threadBean instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) threadBean : null;
+    }
+
+    /*
+     * Total number of collections by every garbage collector
+     */
+    private static long gcCount() {
+        long count = 0;
+        for(GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, bean.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static String toJson(List<ScenarioResult> results, double tolerance, Map<String, Double> tolerances) {
+        StringBuilder out = new StringBuilder();
+        out.append("{\n  \"kernel\": ").append(Json.quote(PhysicsWorld.DISTANCE_KERNEL.getName()));
+        out.append(",\n  \"java\": ").append(Json.quote(System.getProperty("java.version")));
+        out.append(",\n  \"tolerance\": ").append(tolerance);
+        out.append(",\n  \"tolerances\": {");
+        String separator = "";
+        for(Map.Entry<String, Double> entry : tolerances.entrySet()) {
+            if(entry.getValue() == tolerance) continue;
+            out.append(separator).append(Json.quote(entry.getKey())).append(": ").append(entry.getValue());
+            separator = ", ";
+        }
+        out.append('}');
+        out.append(",\n  \"scenarios\": [");
+        for(int r = 0; r < results.size(); r++) {
+            out.append(r == 0 ? "\n    " : ",\n    ");
+            results.get(r).toJson(out);
+        }
+        out.append("\n  ]\n}\n");
+        return out.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readObject(Path path) throws IOException {
+        Object json = Json.parse(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+        if(!(json instanceof Map)) throw new IOException(path + " is not a JSON object");
+        return (Map<String, Object>) json;
+    }
+
+}
@@ -0,0 +1,217 @@
+package gaskell.benchmarks;
+
+import gaskell.sim.HeadlessRunner;
+import gaskell.sim.PhysicsWorld;
+import gaskell.sim.PoolGame;
+import gaskell.sim.TableSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/*
+ * @author Connor Gaskell
+ * @description The scenarios run by the ScenarioSuite:
+ *                  break - the standard rack (the same balls Game.createPoolBalls() places) broken at full power and stepped to rest, twenty times
+ *                  random-shots - a thousand shots at random balls with a random power, each played to rest, resetting the rack when it is cleared
+ *                  idle-aiming - ten minutes of a player moving the aim around a table at rest
+ *                  stress-100, stress-1000, stress-10000 - a rack of that many balls on a table scaled to fit, hit again each time it
+ *                  comes to rest and stepped for a fixed number of steps
+ *              Every scenario uses a fixed seed or a fixed sequence and starts from a TableSnapshot of its starting table,
+ *              so each run does exactly the same work.
+ */
+
+final class Scenarios {
+
+    private Scenarios() {
+    }
+
+    /*
+     * Every scenario, in the order they are run
+     */
+    static List<Scenario> standard() {
+        List<Scenario> scenarios = new ArrayList<>();
+        scenarios.add(new BreakScenario(20));
+        scenarios.add(new RandomShotsScenario(1000));
+        scenarios.add(new IdleAimingScenario(PoolGame.TICKS_PER_SECOND * 600));
+        scenarios.add(new StressScenario(100, 5000));
+        scenarios.add(new StressScenario(1000, 2000));
+        scenarios.add(new StressScenario(10000, 1000));
+        return scenarios;
+    }
+
+    /*
+     * Breaks the standard rack, restoring the racked table from a snapshot before each break
+     */
+    static class BreakScenario extends Scenario {
+
+        // Number of breaks taken
+        private final int breaks;
+
+        private PoolGame game;
+        private TableSnapshot racked;
+        private int taken;
+
+        BreakScenario(int breaks) {
+            super("break", 100_000, 50_000);
+            this.breaks = breaks;
+        }
+
+        @Override
+        void setUp() {
+            game = PoolGame.standard();
+            racked = new TableSnapshot(game.getWorld().getBallCount());
+            game.save(racked);
+        }
+
+        @Override
+        void restart() {
+            game.restore(racked);
+            taken = 0;
+        }
+
+        @Override
+        boolean step() {
+            if(game.canShoot()) {
+                if(taken == breaks) return false;
+                if(taken > 0) game.restore(racked);
+
+                game.getShot().setPower(0.1f, 0.002f);
+                game.shoot();
+                taken++;
+            }
+            game.step();
+            return true;
+        }
+
+    }
+
+    /*
+     * Shots at random balls played to rest, the same shots as the HeadlessRunner
+     */
+    static class RandomShotsScenario extends Scenario {
+
+        // Number of shots taken
+        private final int shots;
+
+        private PoolGame game;
+        private TableSnapshot racked;
+        private Random random;
+        private int taken;
+
+        RandomShotsScenario(int shots) {
+            super("random-shots", 5_000_000, 50_000);
+            this.shots = shots;
+        }
+
+        @Override
+        void setUp() {
+            game = PoolGame.standard();
+            racked = new TableSnapshot(game.getWorld().getBallCount());
+            game.save(racked);
+        }
+
+        @Override
+        void restart() {
+            game.restore(racked);
+            random = new Random(1);
+            taken = 0;
+        }
+
+        @Override
+        boolean step() {
+            if(game.canShoot()) {
+                if(taken == shots) return false;
+
+                // Rack the balls again once they have all been pocketed, the reset is applied by the step
+                if(game.isEnded()) {
+                    game.reset();
+                } else {
+                    HeadlessRunner.aimAtRandomBall(game, random);
+                    game.shoot();
+                    taken++;
+                }
+            }
+            game.step();
+            if(game.getWorld().getTick() % PoolGame.TICKS_PER_SECOND == 0) game.tickSecond();
+            return true;
+        }
+
+    }
+
+    /*
+     * The aim point circles the white ball while every ball is at rest, what the game does for most of its frames
+     */
+    static class IdleAimingScenario extends Scenario {
+
+        private PoolGame game;
+        private int step;
+
+        IdleAimingScenario(int steps) {
+            super("idle-aiming", steps, steps);
+        }
+
+        @Override
+        void setUp() {
+            game = PoolGame.standard();
+        }
+
+        @Override
+        void restart() {
+            step = 0;
+        }
+
+        @Override
+        boolean step() {
+            float angle = step++ * 0.01f;
+            game.aim(-2.0f + (float) Math.cos(angle) * 1.5f, (float) Math.sin(angle) * 1.5f);
+            game.step();
+            return true;
+        }
+
+    }
+
+    /*
+     * A rack of many balls on a scaled table, the white ball is hit into it and hit again whenever every ball has stopped,
+     * in a fixed sequence of directions, so the table is busy for every step
+     */
+    static class StressScenario extends Scenario {
+
+        // Number of balls, including the white ball
+        private final int ballCount;
+
+        private PhysicsWorld world;
+        private TableSnapshot racked;
+        private int shot;
+
+        StressScenario(int ballCount, int steps) {
+            super("stress-" + ballCount, steps, steps);
+            this.ballCount = ballCount;
+        }
+
+        @Override
+        void setUp() {
+            world = BenchmarkTables.rack(ballCount);
+            racked = new TableSnapshot(ballCount);
+            world.save(racked);
+        }
+
+        @Override
+        void restart() {
+            world.restore(racked);
+            shot = 0;
+        }
+
+        @Override
+        boolean step() {
+            if(world.isAtRest()) {
+                float angle = (shot++ % 7 - 3) * 0.05f;
+                world.strike(ballCount - 1, 0.1f, angle * 0.1f);
+            }
+            world.step();
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,44 @@
+package gaskell.benchmarks;
+
+import gaskell.sim.PhysicsWorld;
+import gaskell.sim.TableSnapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * @author Connor Gaskell
+ * @description Benchmarks saving the table into a TableSnapshot and restoring it, what undo and a shot search pay for each copy of the table.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class SnapshotBenchmark {
+
+    @Param({"16", "64", "256"})
+    public int ballCount;
+
+    private PhysicsWorld world;
+    private TableSnapshot snapshot;
+
+    @Setup
+    public void setup() {
+        world = BenchmarkTables.rack(ballCount);
+        snapshot = new TableSnapshot(ballCount);
+        world.save(snapshot);
+    }
+
+    @Benchmark
+    public TableSnapshot save() {
+        world.save(snapshot);
+        return snapshot;
+    }
+
+    @Benchmark
+    public PhysicsWorld restore() {
+        world.restore(snapshot);
+        return world;
+    }
+
+}
@@ -0,0 +1,81 @@
+package gaskell.sim;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/*
+ * @author Connor Gaskell
+ * @description DistanceKernel using the JDK Vector API, each instruction tests as many balls as fit in the widest vector register of the CPU.
+ *              The neighbours of a ball are not next to each other in the arrays, so their positions are gathered through the id list.
+ *              Any balls left over after the last full vector are tested one at a time, masked loads and gathers are not compiled to
+ *              vector instructions by every JDK and a slow masked load would cost more than the few balls it saves.
+ *              The incubator module is needed to compile and run this class: javac/java --add-modules jdk.incubator.vector.
+ *              It is only loaded through DistanceKernel.best(), so the rest of the game builds and runs without it.
+ * References: https://openjdk.org/jeps/414
+ *             https://docs.oracle.com/en/java/javase/17/docs/api/jdk.incubator.vector/jdk/incubator/vector/FloatVector.html
+ */
+
+public class VectorDistanceKernel implements DistanceKernel {
+
+    // Widest vector shape supported by the CPU
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public long overlapMask(float x, float y, float z, float[] posX, float[] posY, float[] posZ, int from, int count, float distanceSquared) {
+        long mask = 0;
+        int lanes = SPECIES.length();
+        int k = 0;
+
+        /*
+         * Whole vectors of balls, the compare gives a lane mask which is shifted into place in the result
+         */
+        for(; k + lanes <= count; k += lanes) {
+            FloatVector dx = FloatVector.fromArray(SPECIES, posX, from + k).sub(x);
+            FloatVector dy = FloatVector.fromArray(SPECIES, posY, from + k).sub(y);
+            FloatVector dz = FloatVector.fromArray(SPECIES, posZ, from + k).sub(z);
+            FloatVector distance = dx.mul(dx).add(dy.mul(dy)).add(dz.mul(dz));
+            mask |= distance.compare(VectorOperators.LT, distanceSquared).toLong() << k;
+        }
+
+        // Balls left over
+        for(; k < count; k++) {
+            int j = from + k;
+            float dx = posX[j] - x, dy = posY[j] - y, dz = posZ[j] - z;
+            if(dx * dx + dy * dy + dz * dz < distanceSquared) mask |= 1L << k;
+        }
+        return mask;
+    }
+
+    @Override
+    public long overlapMask(float x, float y, float z, float[] posX, float[] posY, float[] posZ, int[] ids, int from, int count, float distanceSquared) {
+        long mask = 0;
+        int lanes = SPECIES.length();
+        int k = 0;
+
+        /*
+         * Whole vectors of balls, gathered by id
+         */
+        for(; k + lanes <= count; k += lanes) {
+            FloatVector dx = FloatVector.fromArray(SPECIES, posX, 0, ids, from + k).sub(x);
+            FloatVector dy = FloatVector.fromArray(SPECIES, posY, 0, ids, from + k).sub(y);
+            FloatVector dz = FloatVector.fromArray(SPECIES, posZ, 0, ids, from + k).sub(z);
+            FloatVector distance = dx.mul(dx).add(dy.mul(dy)).add(dz.mul(dz));
+            mask |= distance.compare(VectorOperators.LT, distanceSquared).toLong() << k;
+        }
+
+        // Balls left over
+        for(; k < count; k++) {
+            int j = ids[from + k];
+            float dx = posX[j] - x, dy = posY[j] - y, dz = posZ[j] - z;
+            if(dx * dx + dy * dy + dz * dz < distanceSquared) mask |= 1L << k;
+        }
+        return mask;
+    }
+
+    @Override
+    public String getName() {
+        return "vector (" + SPECIES.length() + " lanes)";
+    }
+
+}
@@ -3,21 +3,34 @@ package gaskell;
 import com.sun.j3d.utils.geometry.Sphere;
 import com.sun.j3d.utils.image.TextureLoader;
 import com.sun.j3d.utils.universe.*;
+import gaskell.profiling.AssetLoadEvent;
+import gaskell.profiling.FrameLogWriter;
+import gaskell.profiling.FrameStats;
 import gaskell.scene.*;
 import gaskell.scene.objects.behaviours.*;
 import gaskell.scene.objects.loaders.LoadObject;
 import gaskell.scene.objects.primitives.*;
+import gaskell.sim.ComputerPlayer;
+import gaskell.sim.PhysicsWorld;
+import gaskell.sim.PoolGame;
+import gaskell.sim.Rack;
+import gaskell.sim.TrajectoryArchiveWriter;
+import gaskell.sim.TrajectorySolver;
 
 
 import javax.media.j3d.*;
 import javax.swing.*;
 import javax.vecmath.*;
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
 
 /*
  * @author Connor Gaskell
  * @description This class handles most of the setup for the game, creates BranchGroups, objects, etc.
+ *              The state of the game is held by a PoolGame (gaskell.sim), the scene graph built here is a view which mirrors it.
  */
 
 public class Game extends JPanel {
@@ -28,32 +41,27 @@ public class Game extends JPanel {
     // ArrayList for all of the balls on the table
     public static ArrayList<Ball> ballRack = new ArrayList<>();
 
-    // ArrayList for all of the pockets on the table
-    public static ArrayList<Ball> tablePockets = new ArrayList<>();
+    // The PoolGame, holds the PhysicsWorld which steps all of the balls on the table, the shot, the timer and whether the game has started or ended
+    public static PoolGame poolGame = PoolGame.standard();
 
-    // ArrayList for all of the pocketed balls
-    public static ArrayList<Ball> pocketedBalls = new ArrayList<>();
-
-    // Boolean for whether the game has started
-    public static boolean gameStarted = false;
-
-    // Boolean for whether the game has ended
-    public static boolean gameEnded = false;
-
-    // Integer for the time the current game has been running
-    public static int time = 0;
+    /*
+     * The computer player, searches on its own pool leaving a core free for rendering, and whether it is taking the shots ('C' key)
+     */
+    public static ComputerPlayer computerPlayer = new ComputerPlayer(ComputerPlayer.Difficulty.MEDIUM, 1500, new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)), System.nanoTime());
+    public static volatile boolean computerEnabled = false;
 
     // Doubles for the current X, Y coordinates of the mouse
     public static double mouseX = 0, mouseY = 0;
 
-    // Boolean for whether the player can hit the white ball
-    public static boolean canShoot = true;
-
     // Ball for the white ball
     public static Ball whiteBall;
 
-    // Vector3f for the power the white ball will be hit at
-    public static Vector3f whiteBallPower = new Vector3f();
+    /*
+     * Measurements of each frame, whether the performance overlay is shown ('P' key) and the CSV frame log, null unless -Dgaskell.framelog=<file> was passed
+     */
+    public static final FrameStats frameStats = new FrameStats();
+    public static volatile boolean performanceOverlay = false;
+    private static volatile FrameLogWriter frameLog;
 
     /*
      * Constructor, creates the Canvas3D, the UI and the 3D Universe.
@@ -76,6 +84,10 @@ public class Game extends JPanel {
             // Graphics2D Object
             Graphics2D g = this.getGraphics2D();
 
+            // Draws the performance panel, and whether the last frame was measured
+            PerformanceOverlay overlay = new PerformanceOverlay();
+            boolean measured = false;
+
             /*
              * The postRender method is used for drawing the overlayed UI on the Canvas3D
              */
@@ -93,26 +105,43 @@ public class Game extends JPanel {
                 /*
                  * Calculations for the timer, creates a timer and using String formatting outputs in the format minutes : seconds
                  */
+                int time = poolGame.getTime();
                 int minutes = time / 60;
                 int seconds = time - (minutes * 60);
-                g.drawString("TIME: " + String.format("%d:%02d", minutes, seconds) + "   |   POTTED: " + pocketedBalls.size(),(int)(screenWidth / 2) - 65, 15);
+                g.drawString("TIME: " + String.format("%d:%02d", minutes, seconds) + "   |   POTTED: " + poolGame.getWorld().getPocketedCount(),(int)(screenWidth / 2) - 65, 15);
 
                 /*
                  * Draws information relevant to the player.
                  */
                 g.drawString("-- INFORMATION --",(int)(screenWidth / 2) - 45, (int)(screenHeight) - 20);
-                g.drawString("HIT BALL - RIGHT MOUSE   |   ROTATE CAMERA - LEFT MOUSE   |   ZOOM - SCROLL MIDDLE MOUSE   |   RESTART - 'R' KEY",(int)(screenWidth / 2) - 350, (int)(screenHeight) - 5);
+                g.drawString("HIT BALL - RIGHT MOUSE   |   ROTATE CAMERA - LEFT MOUSE   |   ZOOM - SCROLL MIDDLE MOUSE   |   RESTART - 'R' KEY   |   UNDO SHOT - 'U' KEY   |   SAVE REPLAY - 'S' KEY   |   COMPUTER PLAYER - 'C' KEY" + (computerEnabled ? " (ON)" : "") + "   |   PERFORMANCE - 'P' KEY",(int)(screenWidth / 2) - 610, (int)(screenHeight) - 5);
 
                 /*
                  * If the game has ended, draw the game over UI.
                  */
-                if(gameEnded) {
+                if(poolGame.isEnded()) {
                     g.setColor(Color.BLACK);
                     g.fillRect(0, ((int) (screenHeight) / 2) - 27, (int) (screenWidth), 45);
                     g.setColor(Color.WHITE);
                     g.drawString("CONGRATULATIONS, ALL BALLS HAVE BEEN POTTED - PRESS 'R' TO PLAY AGAIN", (int) (screenWidth / 2) - 215, (int) (screenHeight) / 2);
                 }
 
+                /*
+                 * Measure the frame while the performance overlay is shown or the frame log is being written, and draw the overlay.
+                 * The stats are reset when measuring starts again, so the time it was off isn't counted as one long frame.
+                 */
+                FrameLogWriter log = frameLog;
+                boolean measure = performanceOverlay || log != null;
+                if(measure) {
+                    if(!measured) frameStats.reset();
+                    PhysicsWorld world = poolGame.getWorld();
+                    int awake = world.getAwakeCount();
+                    int sleeping = world.getBallCount() - world.getPocketedCount() - awake;
+                    if(frameStats.endFrame(awake, sleeping) && log != null) log.capture(frameStats);
+                }
+                measured = measure;
+                if(performanceOverlay) overlay.draw(g, frameStats);
+
                 // Disable Graphics2D flush
                 this.getGraphics2D().flush(false);
 
@@ -245,38 +274,65 @@ public class Game extends JPanel {
         // Create an Appearance for the table
         Appearance tableAppearance = new ObjectMaterial().createAppearance(new Color3f(0.3f, 0.3f, 0.3f), new Color3f(0.0f, 0.0f, 0.0f), new Color3f(1.0f, 1.0f, 1.0f), new Color3f(1.0f, 1.0f, 1.0f), 10.0f);
 
-        // Create and appearance for the transparent pocket colliders
-        Appearance transparentAppearance = new ObjectMaterial().createAppearance(new Color3f(0.3f, 0.3f, 0.3f), new Color3f(0.0f, 0.0f, 0.0f), new Color3f(1.0f, 1.0f, 1.0f), new Color3f(1.0f, 1.0f, 1.0f), 10.0f);
-
-        /*
-         * Creates a transparent texture
-         * Reference: Java 3D API Jump-Start (Aaron E. Walsh and Doug Gehringer)
-         */
-        TransparencyAttributes transparencyAttributes = new TransparencyAttributes();
-        transparencyAttributes.setTransparencyMode(TransparencyAttributes.BLENDED);
-        transparencyAttributes.setTransparency(1.0f);
-        transparentAppearance.setTransparencyAttributes(transparencyAttributes);
-
         /*
          * Load the table .obj file from the directory specified
          * Reference: https://www.cgtrader.com/free-3d-models/sports/game/billiard-pool-table-4a97b4bb488c81810c3f044c2b44473a
          */
         new LoadObject(new Vector3f(0.0f, -1.16f, 0.0f), 3.2f, tableAppearance, mapGroup, "Table", "./res/obj/table/PoolTableLowPoly.obj");
 
+        // The pockets are not in the scene, they are only capture zones of the PhysicsWorld's table (see TableGeometry)
+
+        // Call the createPoolBalls method to add the pool balls to the table
+        createPoolBalls();
+
+        // Add the PhysicsUpdate behaviour, this steps every ball on the table once per frame
+        mapGroup.addChild(new PhysicsUpdate(poolGame));
+
         /*
-         * Create the transparent sphere which will represent the table pockets
+         * Archive the position of every ball on every tick if a file was passed with -Dgaskell.archive=<file>, for scrubbing with TrajectoryArchive.
+         * The archive is written on its own thread so it does not slow the frames down.
          */
-        tablePockets.add(new Ball(new Vector3f(2.85f, -0.0f, 1.45f), new Vector3f(20.0f, 0.0f, 0.0f), 0.13f, transparentAppearance, mapGroup, 1, "Pocket", true));
-        tablePockets.add(new Ball(new Vector3f(2.85f, -0.0f, -1.45f), new Vector3f(20.0f, 0.0f, 0.0f), 0.13f, transparentAppearance, mapGroup, 1, "Pocket", true));
-
-        tablePockets.add(new Ball(new Vector3f(-2.85f, -0.0f, -1.45f), new Vector3f(20.0f, 0.0f, 0.0f), 0.13f, transparentAppearance, mapGroup, 1, "Pocket", true));
-        tablePockets.add(new Ball(new Vector3f(-2.85f, -0.0f, 1.45f), new Vector3f(20.0f, 0.0f, 0.0f), 0.13f, transparentAppearance, mapGroup, 1, "Pocket", true));
+        String archivePath = System.getProperty("gaskell.archive");
+        if(archivePath != null) {
+            try {
+                TrajectoryArchiveWriter archive = new TrajectoryArchiveWriter(Paths.get(archivePath), poolGame);
+                poolGame.setArchive(archive);
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    poolGame.setArchive(null);
+                    try {
+                        archive.close();
+                    } catch(IOException e) {
+                        System.out.println("Could not finish the trajectory archive: " + e.getMessage());
+                    }
+                }));
+            } catch(IOException e) {
+                System.out.println("Could not create the trajectory archive: " + e.getMessage());
+            }
+        }
 
-        tablePockets.add(new Ball(new Vector3f(0, -0.0f, 1.55f), new Vector3f(20.0f, 0.0f, 0.0f), 0.13f, transparentAppearance, mapGroup, 1, "Pocket", true));
-        tablePockets.add(new Ball(new Vector3f(0, -0.0f, -1.55f), new Vector3f(20.0f, 0.0f, 0.0f), 0.13f, transparentAppearance, mapGroup, 1, "Pocket", true));
+        /*
+         * Write the measurements of every frame to a CSV file if one was passed with -Dgaskell.framelog=<file>, on its own thread like the archive
+         */
+        String frameLogPath = System.getProperty("gaskell.framelog");
+        if(frameLogPath != null) {
+            try {
+                FrameLogWriter log = new FrameLogWriter(Paths.get(frameLogPath));
+                frameLog = log;
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    frameLog = null;
+                    try {
+                        log.close();
+                    } catch(IOException e) {
+                        System.out.println("Could not finish the frame log: " + e.getMessage());
+                    }
+                }));
+            } catch(IOException e) {
+                System.out.println("Could not create the frame log: " + e.getMessage());
+            }
+        }
 
-        // Call the createPoolBalls method to add the pool balls to the table
-        createPoolBalls();
+        // Add the ComputerTurn behaviour, this takes the shots while the computer player is switched on
+        mapGroup.addChild(new ComputerTurn(poolGame, computerPlayer));
 
         // Create a plane which is flipped to be transparent, and is at almost table level. This is used so the Pick behaviour intersects with this point.
         Plane planeA = new Plane(new Vector3f(0.0f, 0.125f, 0.0f), new Vector3f(0.0f, 0.0f, 0.0f), 200.0f, 200.0f, new Color3f(0.2f, 0.2f, 0.2f), mapGroup, "FLOOR");
@@ -318,7 +374,17 @@ public class Game extends JPanel {
         skyBackground.setApplicationBounds(Constants.BOUNDS);
 
         // Load the texture for the sky
-        TextureLoader skyTexture = new TextureLoader("./res/DarkBackground.jpg", null);
+        String skyPath = "./res/DarkBackground.jpg";
+        AssetLoadEvent loadEvent = new AssetLoadEvent();
+        loadEvent.begin();
+        TextureLoader skyTexture = new TextureLoader(skyPath, null);
+        loadEvent.end();
+        if(loadEvent.shouldCommit()) {
+            loadEvent.kind = AssetLoadEvent.TEXTURE;
+            loadEvent.path = skyPath;
+            loadEvent.loaded = skyTexture.getTexture() != null;
+            loadEvent.commit();
+        }
         Appearance skyAppearance = new Appearance();
         skyAppearance.setTexture(skyTexture.getTexture());
 
@@ -343,18 +409,11 @@ public class Game extends JPanel {
     }
 
     /*
-     * Method for creating and storing the pool balls
+     * Method for creating and storing the pool balls, a Ball is created for each ball in the rack of the PoolGame
      */
     public void createPoolBalls() {
-        // Size of the pool balls
-        float ballScale = 0.1f;
-
-        /*
-         * Position values for the balls
-         */
-        float ballX = 1.0f;
-        float ballY = 0.0f;
-        float ballZ = 0.0f;
+        // Size of the pool balls, taken from the physics table so the broadphase grid matches the balls
+        float ballScale = poolGame.getWorld().getTable().ballRadius;
 
         // An ArrayList for storing the appearances of the balls
         ArrayList<Appearance> ballAppearances = new ArrayList<>();
@@ -367,51 +426,24 @@ public class Game extends JPanel {
         }
 
         /*
-         * Row 1
-         */
-        ballX = ballX + (ballScale * 1.75f);
-        ballRack.add(new Ball(new Vector3f(ballX, ballY, ballZ), new Vector3f(20.0f, 0.0f, 0.0f), ballScale, ballAppearances.get(1), mapGroup, 1, "SOLID", false));
-
-        /*
-         * Row 2
-         */
-        ballX = ballX + (ballScale * 1.75f);
-        ballRack.add(new Ball(new Vector3f(ballX, ballY, ballZ + (ballScale)), new Vector3f(20.0f, 0.0f, 0.0f), ballScale, ballAppearances.get(2), mapGroup, 2, "SOLID", false));
-        ballRack.add(new Ball(new Vector3f(ballX, ballY, ballZ - (ballScale)), new Vector3f(20.0f, 0.0f, 0.0f), ballScale, ballAppearances.get(3), mapGroup, 3, "SOLID", false));
-
-        /*
-         * Row 3
+         * Create a Ball for each ball in the rack, ball i of the rack is ball i in the PhysicsWorld
          */
-        ballX = ballX + (ballScale * 1.75f);
-        ballRack.add(new Ball(new Vector3f(ballX, ballY, ballZ + (ballScale * 2)), new Vector3f(20.0f, 0.0f, 0.0f), ballScale, ballAppearances.get(4), mapGroup, 4, "SOLID", false));
-        ballRack.add(new Ball(new Vector3f(ballX, ballY, ballZ), new Vector3f(20.0f, 0.0f, 0.0f), ballScale, ballAppearances.get(5), mapGroup, 5, "SOLID", false));
-        ballRack.add(new Ball(new Vector3f(ballX, ballY, ballZ - (ballScale * 2)), new Vector3f(20.0f, 0.0f, 0.0f), ballScale, ballAppearances.get(6), mapGroup, 6, "SOLID", false));
+        Rack rack = poolGame.getRack();
+        for(int i = 0; i < rack.size(); i++) {
+            int number = rack.getNumber(i);
+            Ball ball = new Ball(new Vector3f(rack.getX(i), 0.0f, rack.getZ(i)), new Vector3f(20.0f, 0.0f, 0.0f), ballScale, ballAppearances.get(number), mapGroup, number, Rack.typeOf(rack.getKind(i)), i);
+            ballRack.add(ball);
 
-        /*
-         * Row 4
-         */
-        ballX = ballX + (ballScale * 1.75f);
-        ballRack.add(new Ball(new Vector3f(ballX, ballY, ballZ + ballScale), new Vector3f(20.0f, 0.0f, 0.0f), ballScale, ballAppearances.get(7), mapGroup, 7, "SOLID", false));
-        ballRack.add(new Ball(new Vector3f(ballX, ballY, ballZ - ballScale), new Vector3f(20.0f, 0.0f, 0.0f), ballScale, ballAppearances.get(8), mapGroup, 8, "BLACK", false));
-        ballRack.add(new Ball(new Vector3f(ballX, ballY, ballZ + (ballScale * 3)), new Vector3f(20.0f, 0.0f, 0.0f), ballScale, ballAppearances.get(9), mapGroup, 9, "STRIPE", false));
-        ballRack.add(new Ball(new Vector3f(ballX, ballY, ballZ - (ballScale * 3)), new Vector3f(20.0f, 0.0f, 0.0f), ballScale, ballAppearances.get(10), mapGroup, 10, "STRIPE", false));
-
-        /*
-         * Row 5
-         */
-        ballX = ballX + (ballScale * 1.75f);
-        ballRack.add(new Ball(new Vector3f(ballX, ballY, ballZ + (ballScale * 2)), new Vector3f(20.0f, 0.0f, 0.0f), ballScale, ballAppearances.get(11), mapGroup, 11, "STRIPE", false));
-        ballRack.add(new Ball(new Vector3f(ballX, ballY, ballZ - (ballScale * 2)), new Vector3f(20.0f, 0.0f, 0.0f), ballScale, ballAppearances.get(12), mapGroup, 12, "STRIPE", false));
-        ballRack.add(new Ball(new Vector3f(ballX, ballY, ballZ), new Vector3f(20.0f, 0.0f, 0.0f), ballScale, ballAppearances.get(13), mapGroup, 13, "STRIPE", false));
-        ballRack.add(new Ball(new Vector3f(ballX, ballY, ballZ + (ballScale * 4)), new Vector3f(20.0f, 0.0f, 0.0f), ballScale, ballAppearances.get(14), mapGroup, 14, "STRIPE", false));
-        ballRack.add(new Ball(new Vector3f(ballX, ballY, ballZ - (ballScale * 4)), new Vector3f(20.0f, 0.0f, 0.0f), ballScale, ballAppearances.get(15), mapGroup, 15, "STRIPE", false));
+            /*
+             * White Ball
+             */
+            if(i == rack.getCueBall()) whiteBall = ball;
+        }
 
-        /*
-         * White Ball
-         */
-        whiteBall = new Ball(new Vector3f(-2.0f, ballY, 0.0f), new Vector3f(20.0f, 0.0f, 0.0f), ballScale, ballAppearances.get(0), mapGroup, 0, "WHITE", false);
-        ballRack.add(whiteBall);
         mapGroup.addChild(new Cue(mapGroup, whiteBall));
+
+        // Add the AimPreview behaviour, this draws the predicted path of the shot being aimed
+        mapGroup.addChild(new AimPreview(mapGroup, poolGame, new TrajectorySolver(poolGame.getWorld().getTable())));
     }
 
 }
@@ -2,6 +2,10 @@ package gaskell;
 
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /*
  * @author Connor Gaskell
@@ -22,25 +26,48 @@ public class KeyInputHandler implements KeyListener {
          */
         if(e.getKeyCode() == KeyEvent.VK_R) {
             /*
-             * Resets the position of all of the balls in the ball rack
+             * Resets the position of all of the balls in the ball rack and clears the pocketed balls, this happens at the start of the next physics step.
+             * The game is set to not started and not ended, the timer is reset and the shots of the last game can no longer be taken back.
              */
-            for(int i = 0; i < Game.ballRack.size(); i++) {
-                if(!Game.ballRack.get(i).resetPosition) {
-                    Game.ballRack.get(i).resetPosition = true;
-                }
-            }
+            Game.poolGame.reset();
+        }
 
-            // Clear the pocketedBalls ArrayList
-            Game.pocketedBalls.clear();
+        /*
+         * Triggered when the 'U' key is pressed, takes the last shot back.
+         * The balls, the timer and the aim are put back as they were just before the shot, this happens at the start of the next physics step.
+         * Pressing it again takes back the shot before, up to PoolGame.UNDO_LEVELS shots.
+         */
+        if(e.getKeyCode() == KeyEvent.VK_U) {
+            Game.poolGame.requestUndo();
+        }
 
-            // gameStarted is set to false
-            Game.gameStarted = false;
+        /*
+         * Triggered when the 'C' key is pressed, switches the computer player on or off.
+         * While it is on the computer takes the shots, and the player's right click is ignored.
+         */
+        if(e.getKeyCode() == KeyEvent.VK_C) {
+            Game.computerEnabled = !Game.computerEnabled;
+        }
 
-            // gameEnded is also set to false
-            Game.gameEnded = false;
+        /*
+         * Triggered when the 'P' key is pressed, shows or hides the performance overlay (FPS, frame times, physics time, allocation, GCs and ball counts).
+         */
+        if(e.getKeyCode() == KeyEvent.VK_P) {
+            Game.performanceOverlay = !Game.performanceOverlay;
+        }
 
-            // Reset the timer
-            Game.time = 0;
+        /*
+         * Triggered when the 'S' key is pressed, saves a replay of the game into the working directory.
+         * Only the shots, resets and undos are saved, it can be played again with gaskell.sim.ReplayTool.
+         */
+        if(e.getKeyCode() == KeyEvent.VK_S) {
+            Path file = Paths.get("replay-" + System.currentTimeMillis() + ".pool");
+            try {
+                Files.write(file, Game.poolGame.getReplay().toBytes(Game.poolGame.getWorld().getTable()));
+                System.out.println("Replay saved to " + file.toAbsolutePath());
+            } catch(IOException exception) {
+                System.out.println("Could not save the replay: " + exception.getMessage());
+            }
         }
     }
 
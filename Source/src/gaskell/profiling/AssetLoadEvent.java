@@ -0,0 +1,33 @@
+package gaskell.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/*
+ * @author Connor Gaskell
+ * @description Java Flight Recorder event for each model or texture loaded from disk, committed by LoadObject, ObjectMaterial
+ *              and Game. Its duration is the time of the load.
+ */
+
+@Name("gaskell.AssetLoad")
+@Label("Asset Load")
+@Category({"Gaskell", "Assets"})
+@Description("A model or texture is loaded from disk")
+public class AssetLoadEvent extends jdk.jfr.Event {
+
+    // Kinds of asset
+    public static final String MODEL = "model", TEXTURE = "texture";
+
+    @Label("Kind")
+    public String kind;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Loaded")
+    @Description("False if the asset could not be loaded")
+    public boolean loaded;
+
+}
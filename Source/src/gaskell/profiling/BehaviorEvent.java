@@ -0,0 +1,25 @@
+package gaskell.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/*
+ * @author Connor Gaskell
+ * @description Java Flight Recorder event for each call of a TimedBehavior's processStimulus(), its duration is the time of the call.
+ *              Disabled by default as there are several each frame, turn it on in the recording settings to see every call,
+ *              the BehaviorSummaryEvent gives the totals for each behaviour without it.
+ */
+
+@Name("gaskell.Behavior")
+@Label("Behavior")
+@Category({"Gaskell", "Scene"})
+@Description("A Java3D behaviour processes its stimulus")
+@jdk.jfr.Enabled(false)
+public class BehaviorEvent extends jdk.jfr.Event {
+
+    @Label("Behavior")
+    public String behavior;
+
+}
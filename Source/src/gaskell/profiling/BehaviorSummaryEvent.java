@@ -0,0 +1,37 @@
+package gaskell.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.Timespan;
+
+/*
+ * @author Connor Gaskell
+ * @description Java Flight Recorder event written once a second for each behaviour class, with the totals kept by BehaviorTimings
+ *              since the game started: the number of processStimulus() calls, their total time and the longest call.
+ */
+
+@Name("gaskell.BehaviorSummary")
+@Label("Behavior Summary")
+@Category({"Gaskell", "Scene"})
+@Description("Totals of the processStimulus calls of a behaviour class")
+@Period("1 s")
+public class BehaviorSummaryEvent extends jdk.jfr.Event {
+
+    @Label("Behavior")
+    public String behavior;
+
+    @Label("Calls")
+    public long calls;
+
+    @Label("Total Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long totalTime;
+
+    @Label("Longest Call")
+    @Timespan(Timespan.NANOSECONDS)
+    public long longestCall;
+
+}
@@ -0,0 +1,147 @@
+package gaskell.profiling;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * @author Connor Gaskell
+ * @description Keeps the number of calls, total time and longest call of processStimulus() for each behaviour class (see TimedBehavior).
+ *              Timing is only switched on while a Java Flight Recorder recording is running, or for the whole run with -Dgaskell.timings=true
+ *              which also prints the totals when the game exits. While it is off a behaviour only reads one flag, so it can be left in.
+ *              The totals are written to a recording once a second as a BehaviorSummaryEvent for each class.
+ *              Java3D runs every behaviour on its one behaviour thread, so each timing is only written by that thread and may be read by any.
+ */
+
+public final class BehaviorTimings {
+
+    // Whether -Dgaskell.timings=true was passed
+    private static final boolean ALWAYS_ON = Boolean.getBoolean("gaskell.timings");
+
+    // Whether behaviours should time themselves
+    private static volatile boolean enabled = ALWAYS_ON;
+
+    // Timing of each behaviour class
+    private static final Map<Class<?>, Timing> TIMINGS = new ConcurrentHashMap<>();
+
+    static {
+        // Time the behaviours whenever a recording is running, including one started with the JVM (-XX:StartFlightRecording)
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recordingStateChanged(Recording recording) {
+                updateEnabled();
+            }
+        });
+        if(FlightRecorder.isInitialized()) updateEnabled();
+        FlightRecorder.addPeriodicEvent(BehaviorSummaryEvent.class, BehaviorTimings::writeSummaries);
+
+        if(ALWAYS_ON) Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.print(report())));
+    }
+
+    private BehaviorTimings() {
+    }
+
+    /*
+     * Switches timing on if any recording is running
+     */
+    private static void updateEnabled() {
+        boolean running = false;
+        for(Recording recording : FlightRecorder.getFlightRecorder().getRecordings()) {
+            running |= recording.getState() == RecordingState.RUNNING;
+        }
+        enabled = ALWAYS_ON || running;
+    }
+
+    /*
+     * The timing of a behaviour class, created the first time it is asked for
+     */
+    public static Timing forClass(Class<?> behaviorClass) {
+        return TIMINGS.computeIfAbsent(behaviorClass, c -> new Timing(c.getSimpleName()));
+    }
+
+    /*
+     * Returns true while behaviours should time themselves
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /*
+     * Writes a summary event for each behaviour class, called by the recorder once a second
+     */
+    private static void writeSummaries() {
+        for(Timing timing : TIMINGS.values()) {
+            BehaviorSummaryEvent event = new BehaviorSummaryEvent();
+            event.behavior = timing.name;
+            event.calls = timing.calls;
+            event.totalTime = timing.totalNanos;
+            event.longestCall = timing.longestNanos;
+            event.commit();
+        }
+    }
+
+    /*
+     * A table of the totals of each behaviour class, the slowest in total first
+     */
+    public static String report() {
+        List<Timing> timings = new ArrayList<>(TIMINGS.values());
+        timings.sort(Comparator.comparingLong((Timing t) -> t.totalNanos).reversed());
+
+        StringBuilder out = new StringBuilder(String.format(Locale.ROOT, "%-20s %10s %12s %12s %12s%n", "Behaviour", "Calls", "Total ms", "Mean us", "Longest us"));
+        for(Timing t : timings) {
+            out.append(String.format(Locale.ROOT, "%-20s %10d %12.1f %12.2f %12.1f%n", t.name, t.calls, t.totalNanos / 1e6,
+                    t.calls == 0 ? 0 : t.totalNanos / 1e3 / t.calls, t.longestNanos / 1e3));
+        }
+        return out.toString();
+    }
+
+    /*
+     * Totals of one behaviour class
+     */
+    public static final class Timing {
+
+        // Simple name of the class
+        private final String name;
+
+        private volatile long calls = 0, totalNanos = 0, longestNanos = 0;
+
+        private Timing(String name) {
+            this.name = name;
+        }
+
+        /*
+         * Adds a call which took the passed time, only called from the behaviour thread
+         */
+        public void add(long nanos) {
+            calls = calls + 1;
+            totalNanos = totalNanos + nanos;
+            if(nanos > longestNanos) longestNanos = nanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getLongestNanos() {
+            return longestNanos;
+        }
+
+    }
+
+}
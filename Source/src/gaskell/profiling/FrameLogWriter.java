@@ -0,0 +1,145 @@
+package gaskell.profiling;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * @author Connor Gaskell
+ * @description Streams the measurements of each frame (see FrameStats) to a CSV file, so a frame time trace can be attached to a bug report.
+ *              capture() is called by the renderer after each frame, it only copies the frame into a preallocated ring and returns,
+ *              a background thread takes the frames from the ring and writes them, so the renderer never waits for the disk.
+ *              If the ring is ever full the frame is dropped and counted, the frame numbers in the file show the gap.
+ *              Columns: frame, time_ms (since the log started), frame_ms, physics_ms, allocated_bytes (-1 if the JVM can't count allocation),
+ *              gc_count, awake_balls, sleeping_balls
+ */
+
+public class FrameLogWriter implements AutoCloseable {
+
+    // Header line of the file
+    public static final String HEADER = "frame,time_ms,frame_ms,physics_ms,allocated_bytes,gc_count,awake_balls,sleeping_balls";
+
+    // Number of frames the ring holds, about 17 seconds at 60 frames a second
+    public static final int RING_FRAMES = 1024;
+
+    // Number of long columns of each frame in the ring
+    private static final int COLUMNS = 8;
+
+    /*
+     * The ring of captured frames, COLUMNS longs for each slot.
+     * head is the next slot the renderer writes and tail the next slot the writer thread reads.
+     */
+    private final long[] ring = new long[RING_FRAMES * COLUMNS];
+    private volatile long head = 0, tail = 0;
+
+    // Number of frames dropped because the ring was full
+    private volatile long dropped = 0;
+
+    // When the log was started
+    private final long startNanos = System.nanoTime();
+
+    private final BufferedWriter out;
+
+    // The writer thread, and whether close() has been called
+    private final Thread writer;
+    private volatile boolean closing = false;
+
+    // Error from the writer thread, thrown from close()
+    private volatile IOException failure;
+
+    /*
+     * Constructor passes the file to write, an existing one is replaced
+     */
+    public FrameLogWriter(Path file) throws IOException {
+        out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        out.write(HEADER);
+        out.newLine();
+
+        writer = new Thread(this::run, "Frame log writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /*
+     * Copies the last frame of the stats into the ring, called by the renderer after FrameStats.endFrame().
+     * Returns false if the ring was full and the frame was dropped.
+     */
+    public boolean capture(FrameStats stats) {
+        long slotIndex = head;
+        if(slotIndex - tail == RING_FRAMES) {
+            dropped++;
+            return false;
+        }
+
+        int base = (int) (slotIndex % RING_FRAMES) * COLUMNS;
+        ring[base] = stats.getFrameCount();
+        ring[base + 1] = System.nanoTime() - startNanos;
+        ring[base + 2] = stats.getLastFrameNanos();
+        ring[base + 3] = stats.getLastPhysicsNanos();
+        ring[base + 4] = stats.isAllocationSupported() ? stats.getLastAllocatedBytes() : -1;
+        ring[base + 5] = stats.getGcCount();
+        ring[base + 6] = stats.getAwakeBalls();
+        ring[base + 7] = stats.getSleepingBalls();
+
+        // Publishing the new head makes the slot visible to the writer thread
+        head = slotIndex + 1;
+        return true;
+    }
+
+    /*
+     * Writer thread, writes each captured frame until the writer is closed and the ring is empty, flushing whenever the ring is emptied
+     */
+    private void run() {
+        StringBuilder line = new StringBuilder(128);
+        try {
+            while(true) {
+                long available = head;
+                if(tail == available) {
+                    if(closing) break;
+                    out.flush();
+                    LockSupport.parkNanos(50_000_000);
+                    continue;
+                }
+
+                for(long t = tail; t < available; t++) {
+                    int base = (int) (t % RING_FRAMES) * COLUMNS;
+                    line.setLength(0);
+                    line.append(ring[base]).append(',')
+                            .append(String.format(Locale.ROOT, "%.3f,%.3f,%.3f", ring[base + 1] / 1e6, ring[base + 2] / 1e6, ring[base + 3] / 1e6))
+                            .append(',').append(ring[base + 4]).append(',').append(ring[base + 5])
+                            .append(',').append(ring[base + 6]).append(',').append(ring[base + 7]);
+                    out.write(line.toString());
+                    out.newLine();
+                    tail = t + 1;
+                }
+            }
+            out.flush();
+        } catch(IOException e) {
+            failure = e;
+        }
+    }
+
+    /*
+     * Writes the frames left in the ring and closes the file, throwing any error the writer thread had
+     */
+    @Override
+    public void close() throws IOException {
+        closing = true;
+        try {
+            writer.join();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        out.close();
+        if(failure != null) throw failure;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+}
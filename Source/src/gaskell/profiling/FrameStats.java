@@ -0,0 +1,208 @@
+package gaskell.profiling;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * @author Connor Gaskell
+ * @description Measures each rendered frame for the performance overlay and the frame log: the time of the frame, the physics time
+ *              within it, the bytes allocated during it and the garbage collections so far, and the number of awake and sleeping balls.
+ *              endFrame() is called once per frame by the renderer (Game's postRender), the physics time is added from the behaviour
+ *              thread by PhysicsUpdate. The FPS, median (p50) and 99th percentile (p99) frame time and the mean physics time and allocation
+ *              are worked out over a sliding window of the last WINDOW frames, without allocating.
+ *              Allocation is read from the HotSpot ThreadMXBean for the two threads the game loop runs on, the renderer and the behaviour
+ *              thread (where Java3D runs every behaviour), the computer player's search threads are not counted.
+ */
+
+public class FrameStats {
+
+    // Number of frames the sliding window holds, four seconds at 60 frames a second
+    public static final int WINDOW = 240;
+
+    /*
+     * The window, the time, physics time and bytes allocated of each frame, next is the slot the next frame is written to
+     */
+    private final long[] frameNanos = new long[WINDOW];
+    private final long[] physicsNanos = new long[WINDOW];
+    private final long[] allocatedBytes = new long[WINDOW];
+    private int frames = 0, next = 0;
+
+    // Copy of the frame times sorted for the percentiles
+    private final long[] sorted = new long[WINDOW];
+
+    /*
+     * Physics time and bytes allocated by the behaviour thread since the last frame, written by the behaviour thread and taken by the renderer,
+     * and the behaviour thread's own total at its last sample
+     */
+    private final AtomicLong pendingPhysicsNanos = new AtomicLong(), pendingBehaviourBytes = new AtomicLong();
+    private long behaviourAllocated = -1;
+
+    /*
+     * Beans for the allocation and the garbage collections, the allocation bean is null on a JVM which can't count allocation
+     */
+    private final com.sun.management.ThreadMXBean allocationBean;
+    private final List<GarbageCollectorMXBean> gcBeans = ManagementFactory.getGarbageCollectorMXBeans();
+
+    // When the last frame ended and the total allocated at that point, start is 0 until the first frame
+    private long lastFrameEnd = 0, lastAllocated = 0;
+
+    /*
+     * The last frame
+     */
+    private long frameCount = 0, lastFrameNanos = 0, lastPhysicsNanos = 0, lastAllocatedBytes = 0, gcCount = 0;
+    private int awakeBalls = 0, sleepingBalls = 0;
+
+    public FrameStats() {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if(threadBean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()) {
+            allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+            allocationBean.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            allocationBean = null;
+        }
+    }
+
+    /*
+     * Adds to the physics time of the current frame and samples the allocation of the behaviour thread, called by the behaviour thread
+     * after stepping the game
+     */
+    public void addPhysicsTime(long nanos) {
+        pendingPhysicsNanos.addAndGet(nanos);
+
+        if(allocationBean != null) {
+            long allocated = allocationBean.getCurrentThreadAllocatedBytes();
+            if(behaviourAllocated >= 0) pendingBehaviourBytes.addAndGet(allocated - behaviourAllocated);
+            behaviourAllocated = allocated;
+        }
+    }
+
+    /*
+     * Ends the current frame, passing the number of awake and sleeping balls on the table.
+     * Returns false for the first frame after a reset(), which only marks the start.
+     */
+    public boolean endFrame(int awake, int sleeping) {
+        long now = System.nanoTime();
+        long allocated = allocationBean != null ? allocationBean.getCurrentThreadAllocatedBytes() : 0;
+        long physics = pendingPhysicsNanos.getAndSet(0);
+        long behaviourBytes = pendingBehaviourBytes.getAndSet(0);
+
+        if(lastFrameEnd == 0) {
+            lastFrameEnd = now;
+            lastAllocated = allocated;
+            return false;
+        }
+
+        lastFrameNanos = now - lastFrameEnd;
+        lastPhysicsNanos = physics;
+        lastAllocatedBytes = allocated - lastAllocated + behaviourBytes;
+        lastFrameEnd = now;
+        lastAllocated = allocated;
+
+        long collections = 0;
+        for(int b = 0; b < gcBeans.size(); b++) {
+            collections += Math.max(0, gcBeans.get(b).getCollectionCount());
+        }
+        gcCount = collections;
+        awakeBalls = awake;
+        sleepingBalls = sleeping;
+        frameCount++;
+
+        frameNanos[next] = lastFrameNanos;
+        physicsNanos[next] = lastPhysicsNanos;
+        allocatedBytes[next] = lastAllocatedBytes;
+        next = (next + 1) % WINDOW;
+        if(frames < WINDOW) frames++;
+        return true;
+    }
+
+    /*
+     * Empties the window, e.g. when the overlay is shown again after being hidden, so the gap isn't measured as a frame
+     */
+    public void reset() {
+        frames = 0;
+        next = 0;
+        lastFrameEnd = 0;
+        pendingPhysicsNanos.set(0);
+        pendingBehaviourBytes.set(0);
+    }
+
+    /*
+     * Frames per second over the window
+     */
+    public double getFps() {
+        long total = sum(frameNanos);
+        return total == 0 ? 0 : frames / (total / 1e9);
+    }
+
+    /*
+     * Frame time at the passed fraction of the window (0.5 for the median) in milliseconds, by nearest rank
+     */
+    public double getFramePercentileMillis(double fraction) {
+        if(frames == 0) return 0;
+        System.arraycopy(frameNanos, 0, sorted, 0, frames);
+        Arrays.sort(sorted, 0, frames);
+        int rank = (int) Math.ceil(fraction * frames) - 1;
+        return sorted[Math.max(0, Math.min(frames - 1, rank))] / 1e6;
+    }
+
+    /*
+     * Mean physics time of a frame over the window in milliseconds
+     */
+    public double getPhysicsMillis() {
+        return frames == 0 ? 0 : sum(physicsNanos) / 1e6 / frames;
+    }
+
+    /*
+     * Mean bytes allocated in a frame over the window
+     */
+    public double getAllocatedBytesPerFrame() {
+        return frames == 0 ? 0 : (double) sum(allocatedBytes) / frames;
+    }
+
+    /*
+     * Sum of the frames in the window of one of the columns
+     */
+    private long sum(long[] column) {
+        long total = 0;
+        for(int f = 0; f < frames; f++) {
+            total += column[f];
+        }
+        return total;
+    }
+
+    public boolean isAllocationSupported() {
+        return allocationBean != null;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public long getLastFrameNanos() {
+        return lastFrameNanos;
+    }
+
+    public long getLastPhysicsNanos() {
+        return lastPhysicsNanos;
+    }
+
+    public long getLastAllocatedBytes() {
+        return lastAllocatedBytes;
+    }
+
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    public int getAwakeBalls() {
+        return awakeBalls;
+    }
+
+    public int getSleepingBalls() {
+        return sleepingBalls;
+    }
+
+}
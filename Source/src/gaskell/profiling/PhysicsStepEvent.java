@@ -0,0 +1,39 @@
+package gaskell.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/*
+ * @author Connor Gaskell
+ * @description Java Flight Recorder event for each step of the game's PhysicsWorld, committed by PoolGame.step().
+ *              Its duration is the time of the step, the fields say how much work the step did.
+ *              Steps of the copies stepped by the computer player and the aim preview are not recorded, only the game's own.
+ */
+
+@Name("gaskell.PhysicsStep")
+@Label("Physics Step")
+@Category({"Gaskell", "Physics"})
+@Description("One step of the game's physics world")
+public class PhysicsStepEvent extends jdk.jfr.Event {
+
+    @Label("Tick")
+    public long tick;
+
+    @Label("Balls")
+    public int ballCount;
+
+    @Label("Awake Balls")
+    public int awakeBalls;
+
+    @Label("Substeps")
+    public int substeps;
+
+    @Label("Pairs Tested")
+    public int pairsTested;
+
+    @Label("Contacts Resolved")
+    public int contactsResolved;
+
+}
@@ -0,0 +1,30 @@
+package gaskell.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/*
+ * @author Connor Gaskell
+ * @description Java Flight Recorder event for each pick of the table under the mouse, committed by Pick.updateScene().
+ *              Its duration is the time of the pick, which walks the scene graph on the behaviour thread.
+ */
+
+@Name("gaskell.Pick")
+@Label("Pick")
+@Category({"Gaskell", "Scene"})
+@Description("The point under the mouse is picked from the scene")
+public class PickEvent extends jdk.jfr.Event {
+
+    @Label("Mouse X")
+    public int mouseX;
+
+    @Label("Mouse Y")
+    public int mouseY;
+
+    @Label("Hit")
+    @Description("Whether the pick found a point on the table")
+    public boolean hit;
+
+}
@@ -0,0 +1,32 @@
+package gaskell.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/*
+ * @author Connor Gaskell
+ * @description Java Flight Recorder event for each shot taken, committed by PoolGame.shoot(). Its duration is the time taken to save
+ *              the table for undo and strike the white ball.
+ */
+
+@Name("gaskell.Shot")
+@Label("Shot")
+@Category({"Gaskell", "Game"})
+@Description("The white ball is hit")
+public class ShotEvent extends jdk.jfr.Event {
+
+    @Label("Tick")
+    public long tick;
+
+    @Label("Shot Number")
+    public int shot;
+
+    @Label("Power X")
+    public float powerX;
+
+    @Label("Power Z")
+    public float powerZ;
+
+}
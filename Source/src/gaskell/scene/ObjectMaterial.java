@@ -1,6 +1,7 @@
 package gaskell.scene;
 
 import com.sun.j3d.utils.image.TextureLoader;
+import gaskell.profiling.AssetLoadEvent;
 
 import javax.media.j3d.*;
 import javax.vecmath.*;
@@ -35,10 +36,21 @@ public class ObjectMaterial {
          * Use a TextureLoader to load the texture from the specified path
          * Set the texture of the Appearance to the texture
          */
-        try {
+        if(texture != null) {
+            AssetLoadEvent event = new AssetLoadEvent();
+            event.begin();
+
             TextureLoader objectTexture = new TextureLoader(texture, null);
             appearance.setTexture(objectTexture.getTexture());
-        } catch(NullPointerException e) { }
+
+            event.end();
+            if(event.shouldCommit()) {
+                event.kind = AssetLoadEvent.TEXTURE;
+                event.path = texture;
+                event.loaded = objectTexture.getTexture() != null;
+                event.commit();
+            }
+        }
 
         // Return the created Appearance
         return appearance;
@@ -0,0 +1,69 @@
+package gaskell.scene;
+
+import gaskell.profiling.FrameStats;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Locale;
+
+/*
+ * @author Connor Gaskell
+ * @description Draws the performance panel over the Canvas3D, shown and hidden with the 'P' key: the FPS, the p50 and p99 frame time,
+ *              the physics time and bytes allocated per frame, the garbage collections and the awake and sleeping balls, from a FrameStats.
+ *              The text is only worked out again four times a second, so the panel itself adds little to the allocation it shows.
+ */
+
+public class PerformanceOverlay {
+
+    // Nanoseconds between updates of the text
+    private static final long REFRESH_NANOS = 250_000_000L;
+
+    // Position and size of the panel
+    private static final int X = 10, Y = 30, WIDTH = 240, LINE_HEIGHT = 15;
+
+    // Dark background so the text can be read over the table
+    private static final Color BACKGROUND = new Color(0, 0, 0, 160);
+
+    // Lines of text currently shown
+    private final String[] lines = new String[6];
+
+    // When the text was last worked out
+    private long lastRefresh = 0;
+
+    public PerformanceOverlay() {
+        Arrays.fill(lines, "");
+    }
+
+    /*
+     * Draws the panel, working the text out again if it is out of date
+     */
+    public void draw(Graphics2D g, FrameStats stats) {
+        long now = System.nanoTime();
+        if(now - lastRefresh >= REFRESH_NANOS) {
+            lastRefresh = now;
+            refresh(stats);
+        }
+
+        g.setColor(BACKGROUND);
+        g.fillRect(X, Y, WIDTH, LINE_HEIGHT * (lines.length + 1));
+
+        g.setColor(Color.WHITE);
+        g.drawString("-- PERFORMANCE --", X + 8, Y + LINE_HEIGHT);
+        for(int l = 0; l < lines.length; l++) {
+            g.drawString(lines[l], X + 8, Y + LINE_HEIGHT * (l + 2));
+        }
+    }
+
+    /*
+     * Works the text out from the stats
+     */
+    private void refresh(FrameStats stats) {
+        lines[0] = String.format(Locale.ROOT, "FPS: %.1f", stats.getFps());
+        lines[1] = String.format(Locale.ROOT, "FRAME: p50 %.2f ms   p99 %.2f ms", stats.getFramePercentileMillis(0.5), stats.getFramePercentileMillis(0.99));
+        lines[2] = String.format(Locale.ROOT, "PHYSICS: %.3f ms / frame", stats.getPhysicsMillis());
+        lines[3] = stats.isAllocationSupported() ? String.format(Locale.ROOT, "ALLOCATED: %.1f KB / frame", stats.getAllocatedBytesPerFrame() / 1024) : "ALLOCATED: not available";
+        lines[4] = "GC COUNT: " + stats.getGcCount();
+        lines[5] = "BALLS: " + stats.getAwakeBalls() + " awake   |   " + stats.getSleepingBalls() + " sleeping";
+    }
+
+}
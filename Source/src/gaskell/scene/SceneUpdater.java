@@ -0,0 +1,108 @@
+package gaskell.scene;
+
+import gaskell.scene.objects.primitives.Ball;
+import gaskell.sim.BallStateStore;
+
+import javax.media.j3d.Transform3D;
+import javax.vecmath.Quat4d;
+import javax.vecmath.Vector3f;
+import java.util.List;
+
+/*
+ * @author Connor Gaskell
+ * @description Copies the state of the balls in the PhysicsWorld onto their Balls in the scene once per frame, called by PhysicsUpdate.
+ *              Each setTransform() is a message to Java3D's render thread, so a TransformGroup is only written when its ball has
+ *              actually moved or turned since the last frame: the position is compared with the one last written, and the rotation
+ *              only changes while the ball has spin. A table at rest writes nothing.
+ *              The position and rotation of each ball are kept here in preallocated Transform3D's, the rotation is turned by the spin
+ *              each frame as before but is never read back from the scene graph.
+ */
+
+public class SceneUpdater {
+
+    // The balls in the scene, each mirrors the ball in the world with its physicsId
+    private final Ball[] balls;
+
+    /*
+     * The position last written to each ball, NaN until the first update so every ball is written once
+     */
+    private final float[] lastX, lastY, lastZ;
+
+    // Rotation of each ball, the transform last written to its rotation group
+    private final Transform3D[] rotations;
+
+    // Reusable Transform3D's, Vector3f and Quat4d for the writes, so updating does not allocate
+    private final Transform3D positionTransform = new Transform3D();
+    private final Vector3f position = new Vector3f();
+    private final Transform3D spinTransform = new Transform3D();
+    private final Quat4d spin = new Quat4d();
+
+    // Number of transforms written by the last update
+    private int writes = 0;
+
+    /*
+     * Constructor passes the balls in the scene
+     */
+    public SceneUpdater(List<Ball> balls) {
+        this.balls = balls.toArray(new Ball[0]);
+        int count = this.balls.length;
+        lastX = new float[count];
+        lastY = new float[count];
+        lastZ = new float[count];
+        rotations = new Transform3D[count];
+
+        for(int b = 0; b < count; b++) {
+            lastX[b] = Float.NaN;
+            rotations[b] = this.balls[b].getTransform(this.balls[b].rotation);
+        }
+    }
+
+    /*
+     * Writes the position of each ball which has moved and the rotation of each ball which is spinning.
+     * Returns the number of transforms written.
+     */
+    public int update(BallStateStore state) {
+        writes = 0;
+
+        for(int b = 0; b < balls.length; b++) {
+            Ball ball = balls[b];
+            int id = ball.physicsId;
+
+            /*
+             * Set the position of the ball, if it has moved
+             */
+            float x = state.posX[id], y = state.posY[id], z = state.posZ[id];
+            if(x != lastX[b] || y != lastY[b] || z != lastZ[b]) {
+                lastX[b] = x;
+                lastY[b] = y;
+                lastZ[b] = z;
+                position.set(x, y, z);
+                positionTransform.set(position);
+                ball.position.setTransform(positionTransform);
+                writes++;
+            }
+
+            /*
+             * Turn the ball by its spin using a Quaternion, if it has any, a ball without spin would be turned by the identity
+             */
+            float spinX = state.spinX[id], spinY = state.spinY[id], spinZ = state.spinZ[id];
+            if(spinX != 0 || spinY != 0 || spinZ != 0) {
+                spin.set(spinZ, spinY, -spinX, 0.3f);
+                spinTransform.setIdentity();
+                spinTransform.setRotation(spin);
+                rotations[b].mul(spinTransform);
+                ball.rotation.setTransform(rotations[b]);
+                writes++;
+            }
+        }
+        return writes;
+    }
+
+    /*
+     * Number of transforms written by the last update
+     */
+    public int getWrites() {
+        return writes;
+    }
+
+}
@@ -1,7 +1,5 @@
 package gaskell.scene.objects;
 
-import gaskell.scene.objects.behaviours.Movement;
-
 import javax.media.j3d.*;
 import javax.vecmath.Point3d;
 import javax.vecmath.Quat4d;
@@ -20,18 +18,21 @@ public abstract class GameObject extends TransformGroup {
     // Strings for the name, tag and layer of the GameObject
     public String name, tag, layer;
 
-    // For access to the Movement behaviour attached to each non-static GameObject
-    public Movement movement;
-
     // The origin position of the GameObject
     public Vector3f originPosition;
 
-    // Should the position be reset Boolean
-    public boolean resetPosition = false;
-
     // Boolean for if the object is currently in the scene
     public boolean objectActive;
 
+    /*
+     * Reusable Transform3D's and Vector3f's, so reading and writing the transforms every frame does not allocate.
+     * These are only used from the behaviour thread.
+     */
+    private final Transform3D transformCache = new Transform3D();
+    private final Transform3D rotationCache = new Transform3D();
+    private final Vector3f positionCache = new Vector3f();
+    private final Vector3f otherPositionCache = new Vector3f();
+
     /*
      * In the constructor the TransformGroups are created and their capabilities set
      * Each TransformGroup is parented to the previous:
@@ -64,10 +65,11 @@ public abstract class GameObject extends TransformGroup {
      */
     public void translate(Vector3f translation) {
         // Get the transform of the position group
-        Transform3D transform3D = getTransform(position);
+        Transform3D transform3D = getTransform(position, transformCache);
 
         // Get the position of this object
-        Vector3f pos = getPosition();
+        Vector3f pos = positionCache;
+        transform3D.get(pos);
 
         // Add to the position
         pos.add(translation);
@@ -169,10 +171,8 @@ public abstract class GameObject extends TransformGroup {
      * setPosition method sets the position to the passed Vector
      */
     public void setPosition(Vector3f pos) {
-        // Get the current position
-        Transform3D transform3D = getTransform(position);
-
-        // Set the position to the new position
+        // Set the cached transform to the new position, set() replaces the whole transform so the current one does not need reading
+        Transform3D transform3D = transformCache;
         transform3D.set(pos);
 
         // Set the transform
@@ -184,12 +184,13 @@ public abstract class GameObject extends TransformGroup {
      */
     public void setRotation(Quat4d rot) {
         /*
-         * Creates two Transform3D's, one contains the current rotation the other is set to the new rotation
+         * Uses the two cached Transform3D's, one contains the current rotation the other is set to the new rotation
          * The values are then multiplied and the transform is set
          */
-        Transform3D transform3D = getTransform(rotation);
-        Transform3D transform3D1 = new Transform3D();
+        Transform3D transform3D = getTransform(rotation, transformCache);
+        Transform3D transform3D1 = rotationCache;
 
+        transform3D1.setIdentity();
         transform3D1.setRotation(rot);
         transform3D.mul(transform3D1);
 
@@ -197,27 +198,33 @@ public abstract class GameObject extends TransformGroup {
     }
 
     /*
-     * getPosition gets the position of the gameObject
+     * getPosition gets the position of the gameObject as a new Vector3f
      */
     public Vector3f getPosition() {
-        /*
-         * Calls getTransform and returns as a Vector3f
-         */
-        Transform3D transform3D = getTransform(position);
-        Vector3f pos = new Vector3f();
-        transform3D.get(pos);
-        return pos;
+        return getPosition(new Vector3f());
     }
 
+    /*
+     * getPosition stores the position of the gameObject into the passed Vector3f, without allocating, and returns it
+     */
+    public Vector3f getPosition(Vector3f out) {
+        getTransform(position, transformCache).get(out);
+        return out;
+    }
+
+    /*
+     * getRotation gets the translation of the rotation group as a new Vector3f
+     */
     public Vector3f getRotation() {
-        /*
-         * Calls getTransform and returns as a Vector3f
-         */
-        Transform3D transform3D = getTransform(rotation);
+        return getRotation(new Vector3f());
+    }
 
-        Vector3f rot = new Vector3f();
-        transform3D.get(rot);
-        return rot;
+    /*
+     * getRotation stores the translation of the rotation group into the passed Vector3f, without allocating, and returns it
+     */
+    public Vector3f getRotation(Vector3f out) {
+        getTransform(rotation, transformCache).get(out);
+        return out;
     }
 
     /*
@@ -231,13 +238,18 @@ public abstract class GameObject extends TransformGroup {
      * getTransform gets the Transform3D from the passed TransformGroup
      */
     public Transform3D getTransform(TransformGroup transformGroup) {
-        Transform3D transform3D = new Transform3D();
+        return getTransform(transformGroup, new Transform3D());
+    }
 
+    /*
+     * getTransform stores the Transform3D from the passed TransformGroup into the passed Transform3D, without allocating, and returns it
+     */
+    public Transform3D getTransform(TransformGroup transformGroup, Transform3D out) {
         // Get the Transform3D from the TransformGroup
-        transformGroup.getTransform(transform3D);
+        transformGroup.getTransform(out);
 
         // Return the transform3D variable
-        return transform3D;
+        return out;
     }
 
     /*
@@ -258,13 +270,15 @@ public abstract class GameObject extends TransformGroup {
      */
     public boolean intersects(GameObject gameObject) {
         /*
-         * Gets the position of this object using getPosition and subtracts the position of the other gameObject
+         * Gets the position of both objects once, into the cached vectors, and subtracts the position of the other gameObject
          */
-        double xDiff = getPosition().x - gameObject.getPosition().x;
-        double yDiff = getPosition().y - gameObject.getPosition().y;
-        double zDiff = getPosition().z - gameObject.getPosition().z;
+        Vector3f pos = getPosition(positionCache);
+        Vector3f otherPos = gameObject.getPosition(otherPositionCache);
+        float xDiff = pos.x - otherPos.x;
+        float yDiff = pos.y - otherPos.y;
+        float zDiff = pos.z - otherPos.z;
 
         // Returns a Boolean dependant on the below calculation, determines if this distance between the two gameObject is less than the radius of the object
-        return (xDiff * xDiff) + (yDiff * yDiff) + (zDiff * zDiff) < Math.pow(0.2f, 2);
+        return (xDiff * xDiff) + (yDiff * yDiff) + (zDiff * zDiff) < 0.2f * 0.2f;
     }
 }
@@ -0,0 +1,188 @@
+package gaskell.scene.objects.behaviours;
+
+import gaskell.Constants;
+import gaskell.Game;
+import gaskell.sim.PoolGame;
+import gaskell.sim.Trajectory;
+import gaskell.sim.TrajectorySolver;
+
+import javax.media.j3d.*;
+import javax.vecmath.Color3f;
+import java.util.Arrays;
+import java.util.Enumeration;
+
+/*
+ * @author Connor Gaskell
+ * @description Draws the predicted path of the shot being aimed: the path of the white ball, the ghost ball where it first touches
+ *              another ball, and the path of that ball. The paths come from a TrajectorySolver running in the background.
+ *              The lines are a single LineStripArray with its coordinates held by reference. The strip lengths never change, so unused
+ *              vertices are padded with the last point of their strip. The float array is only rewritten (through a GeometryUpdater)
+ *              when a new trajectory arrives, so nothing is allocated or recomputed while the aim is held still.
+ * References: https://download.java.net/media/java3d/javadoc/1.3.2/javax/media/j3d/GeometryUpdater.html
+ */
+
+public class AimPreview extends TimedBehavior implements GeometryUpdater {
+
+    // Number of segments in the circle drawn for the ghost ball
+    private static final int GHOST_SEGMENTS = 16;
+
+    // Height the lines are drawn at, just above the cloth so they pass under the balls
+    private static final float LINE_HEIGHT = -0.09f;
+
+    /*
+     * Number of vertices in each strip: the white ball path, the object ball path and the ghost ball circle
+     */
+    private static final int[] STRIP_COUNTS = {TrajectorySolver.MAX_POINTS, TrajectorySolver.MAX_POINTS, GHOST_SEGMENTS + 1};
+    private static final int VERTEX_COUNT = TrajectorySolver.MAX_POINTS * 2 + GHOST_SEGMENTS + 1;
+
+    // The criteria which will activate the behavior
+    private WakeupCriterion[] wakeupCriterion;
+
+    // A WakeupOr which will hold all of the WakeupCriterion
+    private WakeupOr wakeupOr;
+
+    // The game being aimed in
+    private PoolGame game;
+
+    // Finds the trajectories in the background
+    private TrajectorySolver solver;
+
+    // The lines, with the coordinates held by reference in coordinates
+    private LineStripArray lines;
+    private float[] coordinates = new float[VERTEX_COUNT * 3];
+
+    /*
+     * The trajectory currently drawn, null when the preview is hidden
+     */
+    private Trajectory shown;
+
+    // Ball radius, for the ghost ball circle
+    private float ballRadius;
+
+    /*
+     * Constructor passes the branch group to add the lines to, the game and the solver
+     */
+    public AimPreview(BranchGroup branchGroup, PoolGame game, TrajectorySolver solver) {
+        this.game = game;
+        this.solver = solver;
+        this.ballRadius = game.getWorld().getTable().ballRadius;
+
+        // Create the LineStripArray, the coordinates are held by reference so they can be rewritten in place
+        lines = new LineStripArray(VERTEX_COUNT, GeometryArray.COORDINATES | GeometryArray.BY_REFERENCE, STRIP_COUNTS);
+        lines.setCapability(GeometryArray.ALLOW_REF_DATA_WRITE);
+        lines.setCapability(GeometryArray.ALLOW_REF_DATA_READ);
+        lines.setCoordRefFloat(coordinates);
+
+        /*
+         * A light, unlit, dashed line
+         */
+        Appearance appearance = new Appearance();
+        appearance.setColoringAttributes(new ColoringAttributes(new Color3f(0.85f, 0.85f, 0.85f), ColoringAttributes.SHADE_FLAT));
+        appearance.setLineAttributes(new LineAttributes(1.5f, LineAttributes.PATTERN_DASH, true));
+
+        Shape3D shape = new Shape3D(lines, appearance);
+        shape.setPickable(false);
+
+        BranchGroup previewBranch = new BranchGroup();
+        previewBranch.addChild(shape);
+        branchGroup.addChild(previewBranch);
+
+        // Sets the scheduling bounds for the behaviour
+        setSchedulingBounds(Constants.BOUNDS);
+    }
+
+    /*
+     * Behaviour initialise method
+     */
+    @Override
+    public void initialize() {
+        wakeupCriterion = new WakeupCriterion[1];
+        wakeupCriterion[0] = new WakeupOnElapsedFrames(0);
+
+        wakeupOr = new WakeupOr(wakeupCriterion);
+        wakeupOn(wakeupOr);
+    }
+
+    /*
+     * Behaviour processStimulus method, called through TimedBehavior
+     */
+    @Override
+    protected void processTimedStimulus(Enumeration enumeration) {
+        WakeupCriterion wakeupCriterion = (WakeupCriterion) enumeration.nextElement();
+
+        if(wakeupCriterion instanceof WakeupOnElapsedFrames) {
+            /*
+             * Only preview while the player is aiming, otherwise hide the lines
+             */
+            Trajectory trajectory = null;
+            if(game.canShoot() && !game.isEnded() && !Game.computerEnabled) {
+                trajectory = solver.request(game.getWorld(), game.getCueBall(), game.getShot().getPowerX(), game.getShot().getPowerZ(), game.getVersion());
+            }
+
+            // Only rewrite the coordinates when the trajectory has changed
+            if(trajectory != shown) {
+                shown = trajectory;
+                lines.updateData(this);
+            }
+        }
+
+        wakeupOn(wakeupOr);
+    }
+
+    /*
+     * GeometryUpdater method, rewrites the coordinates of the lines from the trajectory being shown.
+     * When there is no trajectory every vertex is collapsed onto one point, so nothing is drawn.
+     */
+    @Override
+    public void updateData(Geometry geometry) {
+        if(shown == null) {
+            Arrays.fill(coordinates, 0.0f);
+            for(int v = 0; v < VERTEX_COUNT; v++) {
+                coordinates[v * 3 + 1] = LINE_HEIGHT;
+            }
+            return;
+        }
+
+        int vertex = 0;
+
+        /*
+         * White ball path
+         */
+        for(int i = 0; i < STRIP_COUNTS[0]; i++) {
+            int point = Math.min(i, shown.getCuePointCount() - 1);
+            vertex = setVertex(vertex, shown.getCueX(point), shown.getCueZ(point));
+        }
+
+        /*
+         * Object ball path, collapsed onto the start of the white ball path when nothing is hit
+         */
+        for(int i = 0; i < STRIP_COUNTS[1]; i++) {
+            if(shown.getObjectPointCount() == 0) {
+                vertex = setVertex(vertex, shown.getCueX(0), shown.getCueZ(0));
+            } else {
+                int point = Math.min(i, shown.getObjectPointCount() - 1);
+                vertex = setVertex(vertex, shown.getObjectX(point), shown.getObjectZ(point));
+            }
+        }
+
+        /*
+         * Ghost ball circle, collapsed to a point when nothing is hit
+         */
+        float radius = shown.hasGhostBall() ? ballRadius : 0.0f;
+        for(int i = 0; i <= GHOST_SEGMENTS; i++) {
+            double angle = Math.PI * 2 * i / GHOST_SEGMENTS;
+            vertex = setVertex(vertex, shown.getGhostX() + (float) Math.cos(angle) * radius, shown.getGhostZ() + (float) Math.sin(angle) * radius);
+        }
+    }
+
+    /*
+     * Sets a vertex on the table and returns the index of the next vertex
+     */
+    private int setVertex(int vertex, float x, float z) {
+        coordinates[vertex * 3] = x;
+        coordinates[vertex * 3 + 1] = LINE_HEIGHT;
+        coordinates[vertex * 3 + 2] = z;
+        return vertex + 1;
+    }
+
+}
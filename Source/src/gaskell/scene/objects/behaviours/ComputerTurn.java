@@ -0,0 +1,103 @@
+package gaskell.scene.objects.behaviours;
+
+import gaskell.Constants;
+import gaskell.Game;
+import gaskell.sim.ComputerPlayer;
+import gaskell.sim.PoolGame;
+
+import javax.media.j3d.*;
+import java.util.Enumeration;
+import java.util.concurrent.CompletableFuture;
+
+/*
+ * @author Connor Gaskell
+ * @description Lets the ComputerPlayer take the shots while it is switched on ('C' key).
+ *              Once every ball has stopped a search is started in the background, and the frames carry on being rendered while it runs.
+ *              Each frame the behaviour checks whether the search has finished and, if so, takes the chosen shot.
+ * References: http://www.cs.stir.ac.uk/courses/ITNP3B/Java3D/Tutorial/j3d_tutorial_ch4.pdf
+ */
+
+public class ComputerTurn extends TimedBehavior {
+
+    // The criteria which will activate the behavior
+    private WakeupCriterion[] wakeupCriterion;
+
+    // A WakeupOr which will hold all of the WakeupCriterion
+    private WakeupOr wakeupOr;
+
+    // The game being played
+    private PoolGame game;
+
+    // The computer player
+    private ComputerPlayer computerPlayer;
+
+    // The search currently running, null if the computer is not thinking
+    private CompletableFuture<ComputerPlayer.Result> search;
+
+    // Number of times the game had been reset when the search started
+    private int searchResets;
+
+    /*
+     * Constructor passes the game and the computer player
+     */
+    public ComputerTurn(PoolGame game, ComputerPlayer computerPlayer) {
+        this.game = game;
+        this.computerPlayer = computerPlayer;
+
+        // Set the scheduling bounds
+        setSchedulingBounds(Constants.BOUNDS);
+    }
+
+    /*
+     * Behaviour initialise method
+     */
+    @Override
+    public void initialize() {
+        wakeupCriterion = new WakeupCriterion[1];
+        wakeupCriterion[0] = new WakeupOnElapsedFrames(0);
+
+        wakeupOr = new WakeupOr(wakeupCriterion);
+        wakeupOn(wakeupOr);
+    }
+
+    /*
+     * Behaviour processStimulus method, called through TimedBehavior
+     */
+    @Override
+    protected void processTimedStimulus(Enumeration criteria) {
+        WakeupCriterion wakeupCriterion = (WakeupCriterion) criteria.nextElement();
+
+        if(wakeupCriterion instanceof WakeupOnElapsedFrames) {
+            if(search == null) {
+                /*
+                 * Start thinking once the balls have stopped, the world is copied here so it is not read while the PhysicsUpdate steps it
+                 */
+                if(Game.computerEnabled && game.canShoot() && !game.isEnded()) {
+                    search = computerPlayer.searchAsync(game.getWorld(), game.getCueBall());
+                    searchResets = game.getResets();
+                }
+            } else if(search.isDone()) {
+                /*
+                 * Take the chosen shot, unless the computer was switched off or the game was reset while it was thinking
+                 */
+                ComputerPlayer.Result result = search.isCompletedExceptionally() ? null : search.getNow(null);
+                search = null;
+
+                if(result != null && Game.computerEnabled && game.canShoot() && !game.isEnded() && game.getResets() == searchResets) {
+                    game.getShot().setPower(result.powerX, result.powerZ);
+                    game.shoot();
+                }
+            }
+        }
+
+        wakeupOn(wakeupOr);
+    }
+
+    /*
+     * Returns true while the computer is searching for a shot
+     */
+    public boolean isThinking() {
+        return search != null;
+    }
+
+}
@@ -15,7 +15,7 @@ import java.util.Enumeration;
  * References: http://www.cs.stir.ac.uk/courses/ITNP3B/Java3D/Tutorial/j3d_tutorial_ch4.pdf
  */
 
-public class Cue extends Behavior {
+public class Cue extends TimedBehavior {
 
     // The criteria which will activate the behavior
     private WakeupCriterion[] wakeupCriterion;
@@ -49,6 +49,13 @@ public class Cue extends Behavior {
     // LineArray for creating the line
     LineArray line;
 
+    /*
+     * Reusable points for the two ends of the line and the position of the white ball, so the cue does not allocate each frame
+     */
+    private Point3f lineStart = new Point3f();
+    private Point3f lineEnd = new Point3f();
+    private Vector3f whiteBallPosition = new Vector3f();
+
     /*
      * drawLine method passes the position of the white ball, creates a line based on the position of the white ball and the mouse position
      */
@@ -57,8 +64,10 @@ public class Cue extends Behavior {
         line = new LineArray(2, LineArray.COORDINATES);
 
         // Set the coordinates of the LineArray to the white ball position and 0, 0, 0 to start.
-        line.setCoordinate(0, new Point3f(whiteBallPosition.x, 0.0f, whiteBallPosition.z));
-        line.setCoordinate(1, new Point3f(0.0f, 0.0f, 0.0f));
+        lineStart.set(whiteBallPosition.x, 0.0f, whiteBallPosition.z);
+        lineEnd.set(0.0f, 0.0f, 0.0f);
+        line.setCoordinate(0, lineStart);
+        line.setCoordinate(1, lineEnd);
 
         // Allow for writing coordinate geometry
         line.setCapability(GeometryArray.ALLOW_COORDINATE_WRITE);
@@ -80,18 +89,14 @@ public class Cue extends Behavior {
      * positionLine passes the white ball position, this method continuously position the line dependent on the ball and mouse positions.
      */
     public void positionLine(Vector3f whiteBallPosition) {
-        Game.whiteBallPower = new Vector3f((float)(whiteBallPosition.x - Game.mouseX) / 20, 0.0f, (float)(whiteBallPosition.z - Game.mouseY) / 20);
-
-        // Set the maximum power the white ball can be struck at
-        float maxPower = 0.1f;
-
-        // Limit the white ball power using a conditional operator
-        Game.whiteBallPower.x = Game.whiteBallPower.x >= maxPower ? maxPower : Game.whiteBallPower.x <= -maxPower ? -maxPower : Game.whiteBallPower.x;
-        Game.whiteBallPower.z = Game.whiteBallPower.z >= maxPower ? maxPower : Game.whiteBallPower.z <= -maxPower ? -maxPower : Game.whiteBallPower.z;
+        // Aim the shot at the mouse position, the power is limited by the shot
+        Game.poolGame.aim((float)Game.mouseX, (float)Game.mouseY);
 
         // Set the line coordinates. The cue should only be drawn when the player can shoot and the game isn't over.
-        line.setCoordinate(0, new Point3f(whiteBallPosition.x, 0.0f, whiteBallPosition.z));
-        if(Game.canShoot && !Game.gameEnded) line.setCoordinate(1, new Point3f((float)Game.mouseX, 0.0f, (float)Game.mouseY)); else line.setCoordinate(1, new Point3f(whiteBallPosition.x, 0.0f, whiteBallPosition.z));
+        lineStart.set(whiteBallPosition.x, 0.0f, whiteBallPosition.z);
+        if(Game.poolGame.canShoot() && !Game.poolGame.isEnded()) lineEnd.set((float)Game.mouseX, 0.0f, (float)Game.mouseY); else lineEnd.set(lineStart);
+        line.setCoordinate(0, lineStart);
+        line.setCoordinate(1, lineEnd);
     }
 
     /*
@@ -106,33 +111,20 @@ public class Cue extends Behavior {
         wakeupOn(wakeupOr);
 
         // Call the drawLine method
-        drawLine(whiteBall.getPosition());
+        drawLine(whiteBall.getPosition(whiteBallPosition));
     }
 
     /*
-     * Behaviour processStimulus method
+     * Behaviour processStimulus method, called through TimedBehavior
      */
     @Override
-    public void processStimulus(Enumeration enumeration) {
+    protected void processTimedStimulus(Enumeration enumeration) {
         WakeupCriterion wakeupCriterion = (WakeupCriterion) enumeration.nextElement();
 
         // Wake up when the frame has elapsed
         if(wakeupCriterion instanceof WakeupOnElapsedFrames) {
-            /*
-             * Ensure all the balls have stopped moving, then allow the player to hit the ball again
-             */
-            for(int i = 0; i < Game.ballRack.size(); i++) {
-                if(Game.ballRack.get(i).movement.velocity.x != 0 || Game.ballRack.get(i).movement.velocity.z != 0) {
-                    break;
-                }
-
-                if(Game.ballRack.get(i).movement.velocity.x == 0 && Game.ballRack.get(i).movement.velocity.z == 0 && i == Game.ballRack.size() - 1) {
-                    Game.canShoot = true;
-                }
-            }
-
             // Call the positionLine method to draw the cue
-            positionLine(whiteBall.getPosition());
+            positionLine(whiteBall.getPosition(whiteBallPosition));
         }
 
         wakeupOn(wakeupOr);
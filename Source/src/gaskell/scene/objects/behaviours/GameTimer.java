@@ -11,7 +11,7 @@ import java.util.Enumeration;
  * @description Timer for the game, increments every 1000ms
  */
 
-public class GameTimer extends Behavior {
+public class GameTimer extends TimedBehavior {
 
     private WakeupCriterion[] wakeupCriterion;
     private WakeupOr wakeupOr;
@@ -43,14 +43,14 @@ public class GameTimer extends Behavior {
     }
 
     @Override
-    public void processStimulus(Enumeration enumeration) {
+    protected void processTimedStimulus(Enumeration enumeration) {
         WakeupCriterion wakeupCriterion = (WakeupCriterion) enumeration.nextElement();
 
         /*
-         * If the wakeup criteria for elapsed frames is met, and the game has started and not ended, increment the time variable.
+         * If the wakeup criteria for elapsed time is met, tick the game timer, this only counts if the game has started and not ended.
          */
         if(wakeupCriterion instanceof WakeupOnElapsedTime) {
-            if(Game.gameStarted && !Game.gameEnded) Game.time++;
+            Game.poolGame.tickSecond();
         }
 
         // Set the wakeupOn again, otherwise it will not run again.
@@ -0,0 +1,82 @@
+package gaskell.scene.objects.behaviours;
+
+import gaskell.Constants;
+import gaskell.Game;
+import gaskell.scene.SceneUpdater;
+import gaskell.sim.PoolGame;
+
+import javax.media.j3d.*;
+import java.util.Enumeration;
+
+/*
+ * @author Connor Gaskell
+ * @description Steps the PoolGame once per frame and copies the state of each ball in its PhysicsWorld back onto its Ball in the scene,
+ *              through a SceneUpdater which only writes the balls which moved.
+ *              This is the only behaviour which wakes up for the physics, no matter how many balls are on the table.
+ * References: http://www.cs.stir.ac.uk/courses/ITNP3B/Java3D/Tutorial/j3d_tutorial_ch4.pdf
+ */
+
+public class PhysicsUpdate extends TimedBehavior {
+
+    // The criteria which will activate the behavior
+    private WakeupCriterion[] wakeupCriterion;
+
+    // A WakeupOr which will hold all of the WakeupCriterion
+    private WakeupOr wakeupOr;
+
+    // The game being stepped
+    private PoolGame game;
+
+    // Writes the state of the balls onto the scene
+    private SceneUpdater sceneUpdater;
+
+    /*
+     * Constructor passes the PoolGame, the balls in the ball rack must have been created
+     */
+    public PhysicsUpdate(PoolGame game) {
+        this.game = game;
+        this.sceneUpdater = new SceneUpdater(Game.ballRack);
+
+        // Set the scheduling bounds
+        setSchedulingBounds(Constants.BOUNDS);
+    }
+
+    /*
+     * Behaviour initialise method
+     */
+    @Override
+    public void initialize() {
+        wakeupCriterion = new WakeupCriterion[1];
+        wakeupCriterion[0] = new WakeupOnElapsedFrames(0);
+
+        wakeupOr = new WakeupOr(wakeupCriterion);
+        wakeupOn(wakeupOr);
+    }
+
+    /*
+     * Behaviour processStimulus method, called through TimedBehavior
+     */
+    @Override
+    protected void processTimedStimulus(Enumeration criteria) {
+        WakeupCriterion wakeupCriterion = (WakeupCriterion) criteria.nextElement();
+
+        if(wakeupCriterion instanceof WakeupOnElapsedFrames) {
+            /*
+             * Step every ball once. If all of the balls have been pocketed the game ends, this will trigger a game over sequence.
+             */
+            long start = System.nanoTime();
+            if(game.step()) {
+                System.out.println("All balls have been pocketed!");
+            }
+
+            // Add the time of the step to the frame, for the performance overlay and the frame log
+            Game.frameStats.addPhysicsTime(System.nanoTime() - start);
+
+            // Copy the balls which moved onto the scene
+            sceneUpdater.update(game.getWorld().getBalls());
+        }
+
+        wakeupOn(wakeupOr);
+    }
+
+}
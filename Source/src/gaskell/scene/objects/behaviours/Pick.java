@@ -5,6 +5,8 @@ import com.sun.j3d.utils.picking.PickResult;
 import com.sun.j3d.utils.picking.PickTool;
 import gaskell.Constants;
 import gaskell.Game;
+import gaskell.profiling.PickEvent;
+import jdk.jfr.EventType;
 
 import javax.media.j3d.*;
 import javax.vecmath.Point3d;
@@ -17,6 +19,9 @@ import javax.vecmath.Point3d;
 
 public class Pick extends PickMouseBehavior {
 
+    // The flight recorder's type of the pick event, the event is only allocated while it is enabled in a running recording
+    private static final EventType PICK_EVENT = EventType.getEventType(PickEvent.class);
+
     /*
      * Constructor, passes the Canvas3D, branch group and bounds
      */
@@ -40,6 +45,9 @@ public class Pick extends PickMouseBehavior {
          * Detects the point of intersection of the pickCanvas, if the PickResult is not null...
          * The mouseX and mouseY variables are set to the point of intersection
          */
+        PickEvent event = PICK_EVENT.isEnabled() ? new PickEvent() : null;
+        if(event != null) event.begin();
+
         pickCanvas.setShapeLocation(xPos, yPos);
 
         Point3d eyePos = pickCanvas.getStartPosition();
@@ -55,6 +63,17 @@ public class Pick extends PickMouseBehavior {
             Game.mouseX = intercept.x;
             Game.mouseY = intercept.z;
         }
+
+        // Commit the pick to the flight recording, if one is running
+        if(event != null) {
+            event.end();
+            if(event.shouldCommit()) {
+                event.mouseX = xPos;
+                event.mouseY = yPos;
+                event.hit = pickResult != null;
+                event.commit();
+            }
+        }
     }
 
 }
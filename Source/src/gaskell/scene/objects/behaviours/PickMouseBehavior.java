@@ -47,7 +47,6 @@ import java.awt.Event;
 import java.awt.event.MouseEvent;
 import java.util.Enumeration;
 
-import javax.media.j3d.Behavior;
 import javax.media.j3d.Bounds;
 import javax.media.j3d.BranchGroup;
 import javax.media.j3d.Canvas3D;
@@ -63,7 +62,7 @@ import javax.media.j3d.WakeupOr;
  * this base class). This class is useful for interactive apps.
  */
 
-public abstract class PickMouseBehavior extends Behavior {
+public abstract class PickMouseBehavior extends TimedBehavior {
 
     /**
      * Portion of the scene graph to operate picking on.
@@ -110,15 +109,9 @@ public abstract class PickMouseBehavior extends Behavior {
          * Detects a mouse click, if it is the right mouse button and other conditions are met, hit the white ball.
          */
         if (evt.getID() == MouseEvent.MOUSE_PRESSED | evt.getID() == MouseEvent.MOUSE_CLICKED) {
-            if(evt.getButton() == MouseEvent.BUTTON3 && Game.canShoot && !Game.gameEnded) {
-                // Sets the velocity of the white ball in relation to the distance between the ball and mouse
-                Game.whiteBall.movement.velocity = Game.whiteBallPower;
-
-                // Set canShoot to false
-                Game.canShoot = false;
-
-                // Set gameStarted to true
-                Game.gameStarted = true;
+            if(evt.getButton() == MouseEvent.BUTTON3 && !Game.computerEnabled) {
+                // Sets the velocity of the white ball in relation to the distance between the ball and mouse, if the player can shoot and the game hasn't ended
+                Game.poolGame.shoot();
             }
             return;
         }
@@ -129,7 +122,7 @@ public abstract class PickMouseBehavior extends Behavior {
     }
 
     @Override
-    public void processStimulus (Enumeration criteria) {
+    protected void processTimedStimulus (Enumeration criteria) {
         WakeupCriterion wakeup;
         AWTEvent[] evt = null;
         int xpos = 0, ypos = 0;
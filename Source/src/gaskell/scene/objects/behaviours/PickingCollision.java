@@ -15,7 +15,7 @@ import java.util.Enumeration;
  * References: Killer Game Programming in Java (Andrew Davison)
  */
 
-public class PickingCollision extends Behavior {
+public class PickingCollision extends TimedBehavior {
 
     // The criteria which will activate the behavior
     private WakeupCriterion[] wakeupCriterion;
@@ -93,10 +93,10 @@ public class PickingCollision extends Behavior {
     }
 
     /*
-     * Behaviour processStimulus method
+     * Behaviour processStimulus method, called through TimedBehavior
      */
     @Override
-    public void processStimulus(Enumeration criteria) {
+    protected void processTimedStimulus(Enumeration criteria) {
         while(criteria.hasMoreElements()) {
             WakeupCriterion wakeupCriterion = (WakeupCriterion) criteria.nextElement();
 
@@ -110,7 +110,7 @@ public class PickingCollision extends Behavior {
                 BoundingSphere bounds = (BoundingSphere) collisionObject.bounds.getBounds();
 
                 // Create a PickBounds from the BoundingSphere
-                pickBounds = new PickBounds(new BoundingSphere(new Point3d(collisionObject.movement.positionVector), bounds.getRadius() / 1.5f));
+                pickBounds = new PickBounds(new BoundingSphere(new Point3d(collisionObject.getPosition()), bounds.getRadius() / 1.5f));
 
                 // Set the PickTool shape to the PickBounds
                 pickTool.setShape(pickBounds, new Point3d(0, 0, 0));
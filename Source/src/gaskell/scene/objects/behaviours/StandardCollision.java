@@ -12,7 +12,7 @@ import java.util.Enumeration;
  * References: https://docs.oracle.com/cd/E17802_01/j2se/javase/technologies/desktop/java3d/forDevelopers/J3D_1_3_API/j3dapi/javax/media/j3d/WakeupOnCollisionEntry.html
  */
 
-public class StandardCollision extends Behavior {
+public class StandardCollision extends TimedBehavior {
 
     private Ball gameObject;
 
@@ -66,10 +66,10 @@ public class StandardCollision extends Behavior {
     }
 
     /*
-     * Behaviour processStimulus method
+     * Behaviour processStimulus method, called through TimedBehavior
      */
     @Override
-    public void processStimulus(Enumeration criteria) {
+    protected void processTimedStimulus(Enumeration criteria) {
         WakeupCriterion wakeupCriteria = (WakeupCriterion) criteria.nextElement();
 
         /*
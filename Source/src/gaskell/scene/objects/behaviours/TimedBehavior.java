@@ -0,0 +1,59 @@
+package gaskell.scene.objects.behaviours;
+
+import gaskell.profiling.BehaviorEvent;
+import gaskell.profiling.BehaviorTimings;
+import jdk.jfr.EventType;
+
+import javax.media.j3d.Behavior;
+import java.util.Enumeration;
+
+/*
+ * @author Connor Gaskell
+ * @description Base class of every behaviour in the game, times each call of processStimulus() and adds it to the totals of the
+ *              behaviour's class in BehaviorTimings, and commits a BehaviorEvent for it if that event is enabled in a recording.
+ *              Behaviours put what they did in processStimulus() in processTimedStimulus() instead.
+ *              While timing is off (no recording is running) the only cost is reading one flag, and the event is only allocated
+ *              while it is enabled in a running recording (it is off by default), so timing alone does not allocate.
+ */
+
+public abstract class TimedBehavior extends Behavior {
+
+    // The flight recorder's type of the behaviour event
+    private static final EventType BEHAVIOR_EVENT = EventType.getEventType(BehaviorEvent.class);
+
+    // Totals of this behaviour's class
+    private final BehaviorTimings.Timing timing = BehaviorTimings.forClass(getClass());
+
+    /*
+     * Behaviour processStimulus method, times processTimedStimulus()
+     */
+    @Override
+    public final void processStimulus(Enumeration criteria) {
+        if(!BehaviorTimings.isEnabled()) {
+            processTimedStimulus(criteria);
+            return;
+        }
+
+        BehaviorEvent event = BEHAVIOR_EVENT.isEnabled() ? new BehaviorEvent() : null;
+        if(event != null) event.begin();
+        long start = System.nanoTime();
+        try {
+            processTimedStimulus(criteria);
+        } finally {
+            timing.add(System.nanoTime() - start);
+            if(event != null) {
+                event.end();
+                if(event.shouldCommit()) {
+                    event.behavior = timing.getName();
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    /*
+     * Called by processStimulus() when the behaviour is woken up, with the criteria which woke it
+     */
+    protected abstract void processTimedStimulus(Enumeration criteria);
+
+}
@@ -3,6 +3,7 @@ package gaskell.scene.objects.loaders;
 import com.sun.j3d.loaders.ParsingErrorException;
 import com.sun.j3d.loaders.Scene;
 import com.sun.j3d.loaders.objectfile.ObjectFile;
+import gaskell.profiling.AssetLoadEvent;
 import gaskell.scene.objects.GameObject;
 
 import javax.media.j3d.*;
@@ -37,6 +38,9 @@ public class LoadObject extends GameObject {
 
         Scene scene = null;
 
+        AssetLoadEvent event = new AssetLoadEvent();
+        event.begin();
+
         /*
          * Load the object using the objLoader passing the directory, store the object into the Scene.
          */
@@ -49,6 +53,15 @@ public class LoadObject extends GameObject {
             e.printStackTrace();
         }
 
+        // Commit the load to the flight recording, if one is running
+        event.end();
+        if(event.shouldCommit()) {
+            event.kind = AssetLoadEvent.MODEL;
+            event.path = objFile;
+            event.loaded = scene != null;
+            event.commit();
+        }
+
         // Create a temporary BranchGroup equal to the contents of the Scene
         BranchGroup tempGroup = scene.getSceneGroup();
 
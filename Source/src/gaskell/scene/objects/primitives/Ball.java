@@ -1,41 +1,123 @@
 package gaskell.scene.objects.primitives;
 
 import com.sun.j3d.utils.geometry.*;
+import gaskell.Constants;
 import gaskell.scene.objects.GameObject;
-import gaskell.scene.objects.behaviours.BallCollision;
-import gaskell.scene.objects.behaviours.Movement;
 
 import javax.media.j3d.*;
 import javax.vecmath.Vector3f;
+import java.util.HashMap;
+import java.util.Map;
 
 /*
  * @author Connor Gaskell
- * @description Creates a pool ball object
+ * @description Creates a pool ball object, balls on the table mirror the state of a ball in the PhysicsWorld.
+ *              Each ball has a few levels of detail, switched between by a DistanceLOD as the camera moves closer or further away.
+ *              Every ball of the same size shares the geometry of each level, only the Appearance of each ball is its own.
  */
 
 public class Ball extends GameObject {
 
-    // Shape3D for the ball
-    public Shape3D ballObject;
-
     /*
-     * The constructor passes the position, rotation, scale, material, branch group, the number (in relation to the pool ball), type of pool ball and whether it is static
+     * Levels of detail, the divisions of the sphere geometry of each level from the closest, and the distances from the viewer at which each level
+     * after the first takes over. A ball covers a few pixels from across the table, so it does not need the full detail there.
+     * Both can be changed with -Dgaskell.lod.divisions=50,24,12 and -Dgaskell.lod.distances=4,9, there must be one less distance than
+     * divisions and the distances must increase.
      */
-    public Ball(Vector3f pos, Vector3f rot, float scale, Appearance material, BranchGroup branchGroup, int number, String type, boolean isStatic) {
-        // Create a Sphere and store it into the ballObject variable
-        ballObject = new Sphere(scale, Sphere.GENERATE_NORMALS | Sphere.GENERATE_TEXTURE_COORDS, 50).getShape();
+    public static final int[] LOD_DIVISIONS;
+    public static final float[] LOD_DISTANCES;
+
+    static {
+        int[] divisions = { 50, 24, 12 };
+        float[] distances = { 4.0f, 9.0f };
+        try {
+            String divisionsProperty = System.getProperty("gaskell.lod.divisions"), distancesProperty = System.getProperty("gaskell.lod.distances");
+            String[] divisionValues = divisionsProperty != null ? divisionsProperty.split(",") : null;
+            String[] distanceValues = distancesProperty != null ? distancesProperty.split(",") : null;
+            int[] newDivisions = divisionValues != null ? new int[divisionValues.length] : divisions;
+            float[] newDistances = distanceValues != null ? new float[distanceValues.length] : distances;
+            for(int i = 0; divisionValues != null && i < divisionValues.length; i++) {
+                newDivisions[i] = Integer.parseInt(divisionValues[i].trim());
+            }
+            for(int i = 0; distanceValues != null && i < distanceValues.length; i++) {
+                newDistances[i] = Float.parseFloat(distanceValues[i].trim());
+            }
+
+            /*
+             * Only use the new levels if they fit together, a Sphere needs at least 4 divisions
+             */
+            boolean valid = newDistances.length == newDivisions.length - 1;
+            for(int i = 0; valid && i < newDivisions.length; i++) {
+                valid = newDivisions[i] >= 4;
+            }
+            for(int i = 0; valid && i < newDistances.length; i++) {
+                valid = newDistances[i] > (i == 0 ? 0 : newDistances[i - 1]);
+            }
+
+            if(valid) {
+                divisions = newDivisions;
+                distances = newDistances;
+            } else {
+                System.out.println("Ignoring the ball levels of detail, there must be one less distance than divisions and the distances must increase");
+            }
+        } catch(NumberFormatException e) {
+            System.out.println("Ignoring the ball levels of detail: " + e.getMessage());
+        }
+        LOD_DIVISIONS = divisions;
+        LOD_DISTANCES = distances;
+    }
+
+    // Geometry of each level of detail by the radius of the ball, built once and shared by every ball of that radius
+    private static final Map<Float, Geometry[]> SHARED_GEOMETRY = new HashMap<>();
+
+    // Shape3D for the ball, the shape of the closest level of detail
+    public Shape3D ballObject;
 
-        // Set the appearance of the ball
-        ballObject.setAppearance(material);
+    // Switch holding a Shape3D over the shared geometry (see sharedGeometry()) for each level of detail, and the DistanceLOD which picks one of them by the distance to the viewer
+    public Switch detailSwitch;
+    public DistanceLOD detail;
 
-        // Add the Shape3D to the bounds TransformGroup
-        bounds.addChild(ballObject.getParent());
+    // The id of the ball within the PhysicsWorld, -1 for static balls
+    public int physicsId = -1;
 
+    /*
+     * The constructor passes the position, rotation, scale, material, branch group, the number (in relation to the pool ball), type of pool ball
+     * and the id of the ball in the PhysicsWorld it mirrors, -1 if it is static
+     */
+    public Ball(Vector3f pos, Vector3f rot, float scale, Appearance material, BranchGroup branchGroup, int number, String type, int physicsId) {
         // Name of the ball
         this.name = type + " " + number;
 
-        // Set the user data of the object
-        ballObject.setUserData(this.name);
+        /*
+         * Create a Shape3D for each level of detail from the shared geometry, each with the ball's appearance, and add it to the Switch.
+         * The Switch starts on the closest level, the DistanceLOD changes it as the camera moves.
+         */
+        Geometry[] geometry = sharedGeometry(scale);
+        detailSwitch = new Switch(0);
+        detailSwitch.setCapability(Switch.ALLOW_SWITCH_READ);
+        detailSwitch.setCapability(Switch.ALLOW_SWITCH_WRITE);
+        for(int level = 0; level < geometry.length; level++) {
+            Shape3D shape = new Shape3D(geometry[level], material);
+
+            // Set the user data of the shape
+            shape.setUserData(this.name);
+
+            // Add the shape to the Switch
+            detailSwitch.addChild(shape);
+
+            if(level == 0) ballObject = shape;
+        }
+
+        /*
+         * Create the DistanceLOD, the distance is measured from the centre of the ball as it is inside the ball's TransformGroups
+         */
+        detail = new DistanceLOD(LOD_DISTANCES);
+        detail.addSwitch(detailSwitch);
+        detail.setSchedulingBounds(Constants.BOUNDS);
+
+        // Add the Switch and the DistanceLOD to the bounds TransformGroup
+        bounds.addChild(detailSwitch);
+        bounds.addChild(detail);
 
         // Starting position of the ball
         originPosition = pos;
@@ -52,21 +134,27 @@ public class Ball extends GameObject {
         // Set the ball as active
         objectActive = true;
 
-        /*
-         * If a ball is static then the Movement behaviour is not added to the ball, neither is the BallCollision behaviour
-         */
-        if (!isStatic) {
-            // Add the Movement behaviour to the ball
-            movement = new Movement(this, new Vector3f(0.0f, 0.0f, 0.0f));
-            branchGroup.addChild(movement);
-
-            // Add the BallCollision behaviour to the ball
-            BallCollision physics = new BallCollision(this);
-            branchGroup.addChild(physics);
-        }
+        // The ball in the PhysicsWorld, which handles the movement and collisions of each ball, the PhysicsUpdate behaviour copies its state onto this ball
+        this.physicsId = physicsId;
 
         // Add the gameObject to the BranchGroup
         branchGroup.addChild(gameObject);
     }
 
+    /*
+     * The geometry of each level of detail of a ball of the passed radius, a Sphere is built for each level the first time it is asked for
+     * and only its geometry is kept. Balls are only created while the scene is built, on one thread.
+     */
+    private static Geometry[] sharedGeometry(float radius) {
+        Geometry[] geometry = SHARED_GEOMETRY.get(radius);
+        if(geometry == null) {
+            geometry = new Geometry[LOD_DIVISIONS.length];
+            for(int level = 0; level < LOD_DIVISIONS.length; level++) {
+                geometry[level] = new Sphere(radius, Sphere.GENERATE_NORMALS | Sphere.GENERATE_TEXTURE_COORDS, LOD_DIVISIONS[level]).getShape().getGeometry();
+            }
+            SHARED_GEOMETRY.put(radius, geometry);
+        }
+        return geometry;
+    }
+
 }
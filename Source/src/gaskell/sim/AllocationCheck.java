@@ -0,0 +1,122 @@
+package gaskell.sim;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import java.lang.management.ManagementFactory;
+
+/*
+ * @author Connor Gaskell
+ * @description Checks that stepping the PhysicsWorld, and a PoolGame around it, does not allocate once it has warmed up.
+ *              A full rack is broken over and over, and the bytes allocated by this thread across the measured steps are read from the
+ *              HotSpot ThreadMXBean. The cost of reading the counter itself is measured first and taken away.
+ *              Escape analysis can remove an allocation from this loop which still happens where the step isn't inlined the same way
+ *              (e.g. the ScenarioSuite), so the check is run with it turned off and warns if it isn't.
+ *              Run with: java -XX:-DoEscapeAnalysis -cp out gaskell.sim.AllocationCheck [steps], exits with 1 if any bytes were allocated per step.
+ */
+
+public class AllocationCheck {
+
+    // Number of steps taken before measuring, so the arrays in the world have grown to their final size and the JIT has compiled the step
+    private static final int WARM_UP_STEPS = 100000;
+
+    // Default number of measured steps
+    private static final int MEASURED_STEPS = 20000;
+
+    public static void main(String[] args) {
+        int steps = args.length > 0 ? Integer.parseInt(args[0]) : MEASURED_STEPS;
+
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if(!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+            System.out.println("Allocated bytes are not available on this JVM");
+            return;
+        }
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        long threadId = Thread.currentThread().getId();
+
+        HotSpotDiagnosticMXBean diagnosticBean = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+        if(diagnosticBean != null && Boolean.parseBoolean(diagnosticBean.getVMOption("DoEscapeAnalysis").getValue())) {
+            System.out.println("Escape analysis is on, allocations it removes here may still happen in game (run with -XX:-DoEscapeAnalysis)");
+        }
+
+        /*
+         * Measure the bytes allocated by reading the counter twice with nothing in between
+         */
+        long overhead = allocationBean.getThreadAllocatedBytes(threadId);
+        overhead = allocationBean.getThreadAllocatedBytes(threadId) - overhead;
+
+        /*
+         * The PhysicsWorld on its own
+         */
+        PhysicsWorld world = new PhysicsWorld(TableGeometry.standard());
+        int cueBall = Rack.standard(world.getTable()).addTo(world);
+
+        int shot = 0;
+        for(int i = 0; i < WARM_UP_STEPS; i++) {
+            shot = stepAndStrike(world, cueBall, shot);
+        }
+
+        long before = allocationBean.getThreadAllocatedBytes(threadId);
+        for(int i = 0; i < steps; i++) {
+            shot = stepAndStrike(world, cueBall, shot);
+        }
+        long worldAllocated = Math.max(0, allocationBean.getThreadAllocatedBytes(threadId) - before - overhead);
+        System.out.println("PhysicsWorld steps: " + steps + ", shots: " + shot + ", bytes allocated: " + worldAllocated + " (" + ((double) worldAllocated / steps) + " per step)");
+
+        /*
+         * A PoolGame, as the game steps it: the aim moves every step and the flight recorder events are checked every step.
+         * The white ball is struck on the world and the rack put back from a snapshot, so the replay recorder (which grows as
+         * shots and resets are recorded) is not part of the measurement.
+         */
+        PoolGame game = PoolGame.standard();
+        TableSnapshot racked = new TableSnapshot(game.getWorld().getBallCount());
+        game.save(racked);
+
+        int gameShot = 0;
+        for(int i = 0; i < WARM_UP_STEPS; i++) {
+            gameShot = stepAndStrike(game, racked, i, gameShot);
+        }
+
+        before = allocationBean.getThreadAllocatedBytes(threadId);
+        for(int i = 0; i < steps; i++) {
+            gameShot = stepAndStrike(game, racked, i, gameShot);
+        }
+        long gameAllocated = Math.max(0, allocationBean.getThreadAllocatedBytes(threadId) - before - overhead);
+        System.out.println("PoolGame steps: " + steps + ", shots: " + gameShot + ", bytes allocated: " + gameAllocated + " (" + ((double) gameAllocated / steps) + " per step)");
+
+        if(worldAllocated > 0 || gameAllocated > 0) System.exit(1);
+    }
+
+    /*
+     * Steps the world once, striking the white ball again whenever every ball has stopped.
+     * The rack is reset every few shots so there are always balls on the table to hit.
+     */
+    private static int stepAndStrike(PhysicsWorld world, int cueBall, int shot) {
+        if(world.isAtRest()) {
+            if(shot % 4 == 3) world.requestReset();
+
+            // Vary the angle of each shot without using a Random, a fixed sequence of directions across the rack
+            float angle = (shot % 7 - 3) * 0.05f;
+            world.strike(cueBall, 0.1f, angle * 0.1f);
+            shot++;
+        }
+        world.step();
+        return shot;
+    }
+
+    /*
+     * Aims and steps the game once, striking the white ball again whenever every ball has stopped, racking the balls again every few shots
+     */
+    private static int stepAndStrike(PoolGame game, TableSnapshot racked, int step, int shot) {
+        if(game.getWorld().isAtRest()) {
+            if(shot % 4 == 3) game.restore(racked);
+
+            float angle = (shot % 7 - 3) * 0.05f;
+            game.getWorld().strike(game.getCueBall(), 0.1f, angle * 0.1f);
+            shot++;
+        }
+        game.aim(-2.0f + (step % 100) * 0.01f, 0.5f);
+        game.step();
+        return shot;
+    }
+
+}
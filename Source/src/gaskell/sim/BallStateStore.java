@@ -0,0 +1,357 @@
+package gaskell.sim;
+
+import java.util.Arrays;
+
+/*
+ * @author Connor Gaskell
+ * @description Stores the state of every ball as flat primitive columns (structure of arrays), indexed by the ball id.
+ *              Positions, velocities and spin are float arrays and the active, pocketed, moving and awake flags are long bit masks,
+ *              so the loops in the PhysicsWorld walk contiguous memory, never allocate and never compare ball names.
+ *              A ball is awake while it has any velocity or spin left, the PhysicsWorld only visits awake balls so a table at rest costs nothing.
+ */
+
+public class BallStateStore {
+
+    /*
+     * The kind of each ball, replaces comparing the "WHITE 0" style names
+     */
+    public static final int KIND_CUE = 0;
+    public static final int KIND_SOLID = 1;
+    public static final int KIND_STRIPE = 2;
+    public static final int KIND_BLACK = 3;
+
+    // Number of balls in the store
+    private int count = 0;
+
+    /*
+     * Position, velocity and spin velocity columns
+     */
+    public float[] posX, posY, posZ;
+    public float[] velX, velY, velZ;
+    public float[] spinX, spinY, spinZ;
+
+    // The position each ball is reset to
+    public float[] originX, originZ;
+
+    /*
+     * Mass and restitution (bounciness, 1 for a perfectly elastic ball) of each ball, used by the ContactSolver.
+     * Every ball is added with a mass and restitution of 1, the same as a standard pool ball against another.
+     */
+    public float[] mass, restitution;
+
+    // The kind of each ball (KIND_CUE, KIND_SOLID, ...)
+    public int[] kind;
+
+    // The number printed on each ball
+    public int[] number;
+
+    /*
+     * Bit masks for the state of each ball, bit i is the flag for ball i
+     */
+    public long[] active, pocketed, moving, awake;
+
+    // Number of balls with their pocketed, moving and awake bits set
+    private int pocketedCount = 0, movingCount = 0, awakeCount = 0;
+
+    /*
+     * Constructor passes the initial capacity of the store
+     */
+    public BallStateStore(int capacity) {
+        allocate(Math.max(1, capacity));
+    }
+
+    /*
+     * Creates (or grows) every column to the passed capacity
+     */
+    private void allocate(int capacity) {
+        posX = grow(posX, capacity);
+        posY = grow(posY, capacity);
+        posZ = grow(posZ, capacity);
+        velX = grow(velX, capacity);
+        velY = grow(velY, capacity);
+        velZ = grow(velZ, capacity);
+        spinX = grow(spinX, capacity);
+        spinY = grow(spinY, capacity);
+        spinZ = grow(spinZ, capacity);
+        originX = grow(originX, capacity);
+        originZ = grow(originZ, capacity);
+        mass = grow(mass, capacity);
+        restitution = grow(restitution, capacity);
+        kind = kind == null ? new int[capacity] : Arrays.copyOf(kind, capacity);
+        number = number == null ? new int[capacity] : Arrays.copyOf(number, capacity);
+
+        int words = (capacity + 63) >>> 6;
+        active = active == null ? new long[words] : Arrays.copyOf(active, words);
+        pocketed = pocketed == null ? new long[words] : Arrays.copyOf(pocketed, words);
+        moving = moving == null ? new long[words] : Arrays.copyOf(moving, words);
+        awake = awake == null ? new long[words] : Arrays.copyOf(awake, words);
+    }
+
+    private static float[] grow(float[] column, int capacity) {
+        return column == null ? new float[capacity] : Arrays.copyOf(column, capacity);
+    }
+
+    /*
+     * Adds a ball at the passed position and returns its id
+     */
+    public int add(float x, float y, float z, int ballKind, int ballNumber) {
+        int id = count;
+
+        // Double the capacity if the store is full
+        if(id == posX.length) allocate(posX.length * 2);
+
+        posX[id] = x;
+        posY[id] = y;
+        posZ[id] = z;
+        originX[id] = x;
+        originZ[id] = z;
+        mass[id] = 1.0f;
+        restitution[id] = 1.0f;
+        kind[id] = ballKind;
+        number[id] = ballNumber;
+        set(active, id);
+
+        count++;
+        return id;
+    }
+
+    /*
+     * Copies the state of every ball from the passed store into this one, growing the columns if needed.
+     * Used to simulate on a copy of a table without touching the original.
+     */
+    public void copyFrom(BallStateStore other) {
+        if(posX.length < other.count) allocate(other.posX.length);
+
+        int n = other.count;
+        System.arraycopy(other.posX, 0, posX, 0, n);
+        System.arraycopy(other.posY, 0, posY, 0, n);
+        System.arraycopy(other.posZ, 0, posZ, 0, n);
+        System.arraycopy(other.velX, 0, velX, 0, n);
+        System.arraycopy(other.velY, 0, velY, 0, n);
+        System.arraycopy(other.velZ, 0, velZ, 0, n);
+        System.arraycopy(other.spinX, 0, spinX, 0, n);
+        System.arraycopy(other.spinY, 0, spinY, 0, n);
+        System.arraycopy(other.spinZ, 0, spinZ, 0, n);
+        System.arraycopy(other.originX, 0, originX, 0, n);
+        System.arraycopy(other.originZ, 0, originZ, 0, n);
+        System.arraycopy(other.mass, 0, mass, 0, n);
+        System.arraycopy(other.restitution, 0, restitution, 0, n);
+        System.arraycopy(other.kind, 0, kind, 0, n);
+        System.arraycopy(other.number, 0, number, 0, n);
+
+        int words = (n + 63) >>> 6;
+        Arrays.fill(active, 0L);
+        Arrays.fill(pocketed, 0L);
+        Arrays.fill(moving, 0L);
+        Arrays.fill(awake, 0L);
+        System.arraycopy(other.active, 0, active, 0, words);
+        System.arraycopy(other.pocketed, 0, pocketed, 0, words);
+        System.arraycopy(other.moving, 0, moving, 0, words);
+        System.arraycopy(other.awake, 0, awake, 0, words);
+
+        count = n;
+        pocketedCount = other.pocketedCount;
+        movingCount = other.movingCount;
+        awakeCount = other.awakeCount;
+    }
+
+    /*
+     * Counts the pocketed, moving and awake balls again from the masks, after the masks have been copied in directly (see TableSnapshot)
+     */
+    void recount() {
+        pocketedCount = 0;
+        movingCount = 0;
+        awakeCount = 0;
+        for(int w = 0; w < active.length; w++) {
+            pocketedCount += Long.bitCount(pocketed[w]);
+            movingCount += Long.bitCount(moving[w]);
+            awakeCount += Long.bitCount(awake[w]);
+        }
+    }
+
+    /*
+     * Sets the mass of a ball, which must be above zero
+     */
+    public void setMass(int i, float ballMass) {
+        if(ballMass <= 0) throw new IllegalArgumentException("Mass must be above zero: " + ballMass);
+        mass[i] = ballMass;
+    }
+
+    /*
+     * Sets the restitution of a ball, from 0 (the balls stop together) to 1 (no energy is lost)
+     */
+    public void setRestitution(int i, float ballRestitution) {
+        restitution[i] = Math.max(0.0f, Math.min(1.0f, ballRestitution));
+    }
+
+    /*
+     * Sets the velocity of a ball, keeping the moving flag up to date
+     */
+    public void setVelocity(int i, float x, float y, float z) {
+        velX[i] = x;
+        velY[i] = y;
+        velZ[i] = z;
+        updateMoving(i);
+    }
+
+    /*
+     * Sets or clears the moving flag of a ball based on its velocity across the table, and the awake flag based on all of its velocity and spin.
+     * Must be called whenever the velocity or spin of a ball is changed directly.
+     */
+    public void updateMoving(int i) {
+        boolean isMoving = velX[i] != 0 || velZ[i] != 0;
+        if(isMoving != get(moving, i)) {
+            if(isMoving) {
+                set(moving, i);
+                movingCount++;
+            } else {
+                clear(moving, i);
+                movingCount--;
+            }
+        }
+
+        // Falling balls and balls which are still spinning in place stay awake
+        boolean isAwake = isMoving || velY[i] != 0 || spinX[i] != 0 || spinY[i] != 0 || spinZ[i] != 0;
+        if(isAwake != get(awake, i)) {
+            if(isAwake) {
+                set(awake, i);
+                awakeCount++;
+            } else {
+                clear(awake, i);
+                awakeCount--;
+            }
+        }
+    }
+
+    /*
+     * Stops the ball, it is no longer visited by the PhysicsWorld until something hits it
+     */
+    public void sleep(int i) {
+        spinX[i] = 0.0f;
+        spinY[i] = 0.0f;
+        spinZ[i] = 0.0f;
+        setVelocity(i, 0.0f, 0.0f, 0.0f);
+    }
+
+    /*
+     * Flags the ball as pocketed, returns false if it already was
+     */
+    public boolean markPocketed(int i) {
+        if(get(pocketed, i)) return false;
+        set(pocketed, i);
+        pocketedCount++;
+        return true;
+    }
+
+    /*
+     * Moves a ball back to its origin, stops it and sets it active
+     */
+    public void resetBall(int i) {
+        posX[i] = originX[i];
+        posY[i] = 0.0f;
+        posZ[i] = originZ[i];
+        spinX[i] = 0.0f;
+        spinY[i] = 0.0f;
+        spinZ[i] = 0.0f;
+        setVelocity(i, 0.0f, 0.0f, 0.0f);
+        set(active, i);
+    }
+
+    /*
+     * Moves every ball back to its origin and clears the pocketed flags
+     */
+    public void resetAll() {
+        for(int i = 0; i < count; i++) {
+            resetBall(i);
+        }
+        Arrays.fill(pocketed, 0L);
+        pocketedCount = 0;
+    }
+
+    public boolean isCueBall(int i) {
+        return kind[i] == KIND_CUE;
+    }
+
+    public boolean isActive(int i) {
+        return get(active, i);
+    }
+
+    public boolean isPocketed(int i) {
+        return get(pocketed, i);
+    }
+
+    public boolean isAwake(int i) {
+        return get(awake, i);
+    }
+
+    /*
+     * Returns the id of the first awake ball from the passed id onwards, or -1 if there are none.
+     * Loop over the awake balls with: for(int i = nextAwake(0); i >= 0; i = nextAwake(i + 1))
+     */
+    public int nextAwake(int from) {
+        return nextSet(awake, from, count);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getPocketedCount() {
+        return pocketedCount;
+    }
+
+    public int getMovingCount() {
+        return movingCount;
+    }
+
+    public int getAwakeCount() {
+        return awakeCount;
+    }
+
+    /*
+     * Converts the type names used by the scene ("WHITE", "SOLID", "STRIPE", "BLACK") to a ball kind
+     */
+    public static int kindOf(String type) {
+        switch(type) {
+            case "WHITE": return KIND_CUE;
+            case "STRIPE": return KIND_STRIPE;
+            case "BLACK": return KIND_BLACK;
+            default: return KIND_SOLID;
+        }
+    }
+
+    /*
+     * Bit mask helpers
+     */
+    public static boolean get(long[] mask, int i) {
+        return (mask[i >>> 6] & (1L << i)) != 0;
+    }
+
+    public static void set(long[] mask, int i) {
+        mask[i >>> 6] |= 1L << i;
+    }
+
+    public static void clear(long[] mask, int i) {
+        mask[i >>> 6] &= ~(1L << i);
+    }
+
+    /*
+     * Returns the first set bit from the passed index up to (not including) the limit, or -1 if there are none.
+     * Whole words of clear bits are skipped at once.
+     */
+    public static int nextSet(long[] mask, int from, int limit) {
+        if(from >= limit) return -1;
+
+        int word = from >>> 6;
+        long bits = mask[word] & (-1L << from);
+        while(true) {
+            if(bits != 0) {
+                int i = (word << 6) + Long.numberOfTrailingZeros(bits);
+                return i < limit ? i : -1;
+            }
+            if(++word << 6 >= limit) return -1;
+            bits = mask[word];
+        }
+    }
+
+}
@@ -0,0 +1,278 @@
+package gaskell.sim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/*
+ * @author Connor Gaskell
+ * @description Computer opponent which picks a shot by Monte Carlo search.
+ *              Candidate shots (a direction and a power, within the same limit as the player) are sampled, each is simulated to rest on a
+ *              copy of the table and the outcome is scored: balls pocketed, the white ball being pocketed, and how close the white ball is left
+ *              to the next ball. The samples are split across the workers of a ForkJoinPool, each worker has its own copy of the table and
+ *              keeps its own best shot, so nothing is shared until the best shots are compared at the end.
+ *              The search stops early once the time budget is used up. The difficulty sets the number of samples and how much noise
+ *              is added to the chosen shot, so an easy opponent both searches less and misses more.
+ */
+
+public class ComputerPlayer {
+
+    /*
+     * Difficulty levels, the number of samples searched and the noise added to the angle (radians) and power (fraction) of the chosen shot
+     */
+    public enum Difficulty {
+        EASY(64, 0.08f, 0.25f),
+        MEDIUM(512, 0.02f, 0.1f),
+        HARD(4096, 0.0f, 0.0f);
+
+        public final int samples;
+        public final float angleNoise, powerNoise;
+
+        Difficulty(int samples, float angleNoise, float powerNoise) {
+            this.samples = samples;
+            this.angleNoise = angleNoise;
+            this.powerNoise = powerNoise;
+        }
+    }
+
+    // Maximum number of ticks each sample is simulated for
+    public static final int MAX_SAMPLE_TICKS = 5000;
+
+    // Minimum power of a sampled shot, on the longest axis
+    public static final float MIN_POWER = 0.02f;
+
+    /*
+     * Scores of each outcome
+     */
+    private static final float POCKET_SCORE = 1.0f, SCRATCH_SCORE = -2.0f, CLEAR_SCORE = 10.0f, LEAVE_SCORE = 0.25f;
+
+    // Difficulty of the opponent
+    private final Difficulty difficulty;
+
+    // Time the search can take in milliseconds
+    private final long timeBudget;
+
+    // Pool the samples are simulated on
+    private final ForkJoinPool forkJoinPool;
+
+    // Random numbers for the samples and the noise, split for each search so searches can run at the same time
+    private final SplittableRandom random;
+
+    /*
+     * Constructor passes the difficulty, the time budget in milliseconds, the pool to search on and the seed for the random numbers
+     */
+    public ComputerPlayer(Difficulty difficulty, long timeBudget, ForkJoinPool forkJoinPool, long seed) {
+        this.difficulty = difficulty;
+        this.timeBudget = timeBudget;
+        this.forkJoinPool = forkJoinPool;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /*
+     * The result of a search, the power of the chosen shot (noise included), its score and the number of samples simulated
+     */
+    public static class Result {
+
+        public final float powerX, powerZ, score;
+        public final int samples;
+
+        Result(float powerX, float powerZ, float score, int samples) {
+            this.powerX = powerX;
+            this.powerZ = powerZ;
+            this.score = score;
+            this.samples = samples;
+        }
+
+    }
+
+    /*
+     * Starts a search in the background. The world is copied before returning, so it can carry on being stepped while the search runs.
+     * Must be called on the thread which steps the world, e.g. from a behaviour.
+     */
+    public CompletableFuture<Result> searchAsync(PhysicsWorld world, int cueBall) {
+        PhysicsWorld copy = copyOf(world);
+        SplittableRandom searchRandom = random.split();
+        return CompletableFuture.supplyAsync(() -> search(copy, cueBall, searchRandom), forkJoinPool);
+    }
+
+    /*
+     * Searches for the best shot on the passed world, blocking until the search is done. The world is not changed.
+     */
+    public Result search(PhysicsWorld world, int cueBall) {
+        return search(copyOf(world), cueBall, random.split());
+    }
+
+    /*
+     * Splits the samples into one batch per worker, runs the batches and keeps the best shot of all the batches
+     */
+    private Result search(PhysicsWorld base, int cueBall, SplittableRandom searchRandom) {
+        long deadline = System.nanoTime() + timeBudget * 1000000L;
+        int workers = Math.max(1, forkJoinPool.getParallelism());
+        int samples = difficulty.samples;
+
+        List<Batch> batches = new ArrayList<>();
+        for(int w = 0; w < workers; w++) {
+            int from = samples * w / workers, to = samples * (w + 1) / workers;
+            if(to > from) batches.add(new Batch(base, cueBall, to - from, deadline, searchRandom.split()));
+        }
+
+        /*
+         * Run the batches, joining each one when called from within the pool so the worker can help rather than block
+         */
+        Batch best = null;
+        int simulated = 0;
+        for(Future<Batch> future : forkJoinPool.invokeAll(batches)) {
+            Batch batch;
+            try {
+                batch = future.get();
+            } catch(Exception e) {
+                throw new IllegalStateException("Shot search failed", e);
+            }
+            simulated += batch.simulated;
+            if(best == null || batch.bestScore > best.bestScore) best = batch;
+        }
+
+        // No sample was simulated in time, shoot straight at the rack
+        if(best == null || best.simulated == 0) return new Result(Shot.MAX_POWER, 0.0f, 0.0f, simulated);
+
+        /*
+         * Add noise to the chosen shot, the power limit still applies
+         */
+        double angle = Math.atan2(best.bestZ, best.bestX) + searchRandom.nextDouble(-1.0, 1.0) * difficulty.angleNoise;
+        double power = Math.hypot(best.bestX, best.bestZ) * (1.0 + searchRandom.nextDouble(-1.0, 1.0) * difficulty.powerNoise);
+        float powerX = Shot.clamp((float) (Math.cos(angle) * power));
+        float powerZ = Shot.clamp((float) (Math.sin(angle) * power));
+
+        return new Result(powerX, powerZ, best.bestScore, simulated);
+    }
+
+    /*
+     * A batch of samples simulated by one worker on its own copy of the table
+     */
+    private class Batch implements Callable<Batch> {
+
+        private final PhysicsWorld base, scratch;
+        private final int cueBall, samples;
+        private final long deadline;
+        private final SplittableRandom batchRandom;
+
+        /*
+         * The best shot found by the batch and the number of samples simulated
+         */
+        float bestX, bestZ, bestScore = Float.NEGATIVE_INFINITY;
+        int simulated = 0;
+
+        Batch(PhysicsWorld base, int cueBall, int samples, long deadline, SplittableRandom batchRandom) {
+            this.base = base;
+            this.scratch = new PhysicsWorld(base.getTable());
+            this.cueBall = cueBall;
+            this.samples = samples;
+            this.deadline = deadline;
+            this.batchRandom = batchRandom;
+        }
+
+        @Override
+        public Batch call() {
+            BallStateStore balls = base.getBalls();
+
+            for(int s = 0; s < samples && System.nanoTime() < deadline; s++) {
+                /*
+                 * Half of the samples are aimed near a ball still on the table, the rest in any direction
+                 */
+                double angle;
+                int target = randomTarget(balls);
+                if(target >= 0 && batchRandom.nextBoolean()) {
+                    angle = Math.atan2(balls.posZ[target] - balls.posZ[cueBall], balls.posX[target] - balls.posX[cueBall]) + batchRandom.nextDouble(-0.05, 0.05);
+                } else {
+                    angle = batchRandom.nextDouble(0, Math.PI * 2);
+                }
+                float power = MIN_POWER + (float) batchRandom.nextDouble() * (Shot.MAX_POWER - MIN_POWER);
+
+                // Scale so the longest axis has the power, as the power is limited on each axis
+                float dx = (float) Math.cos(angle), dz = (float) Math.sin(angle);
+                float longest = Math.max(Math.abs(dx), Math.abs(dz));
+                float powerX = dx / longest * power, powerZ = dz / longest * power;
+
+                float score = simulate(powerX, powerZ);
+                simulated++;
+                if(score > bestScore) {
+                    bestScore = score;
+                    bestX = powerX;
+                    bestZ = powerZ;
+                }
+            }
+            return this;
+        }
+
+        /*
+         * Simulates the shot to rest on the scratch copy of the table and scores the outcome
+         */
+        private float simulate(float powerX, float powerZ) {
+            scratch.copyFrom(base);
+            int pocketedBefore = scratch.getPocketedCount();
+
+            scratch.strike(cueBall, powerX, powerZ);
+            scratch.stepUntilRest(MAX_SAMPLE_TICKS);
+
+            float score = (scratch.getPocketedCount() - pocketedBefore) * POCKET_SCORE;
+            if(scratch.takeTimePenalty() > 0) score += SCRATCH_SCORE;
+            if(scratch.allPocketed()) return score + CLEAR_SCORE;
+
+            /*
+             * Leave, a small bonus for the white ball finishing close to a ball which is still on the table
+             */
+            BallStateStore after = scratch.getBalls();
+            float nearest = Float.MAX_VALUE;
+            for(int i = 0; i < after.size(); i++) {
+                if(i == cueBall || !after.isActive(i)) continue;
+                float xDiff = after.posX[i] - after.posX[cueBall], zDiff = after.posZ[i] - after.posZ[cueBall];
+                nearest = Math.min(nearest, xDiff * xDiff + zDiff * zDiff);
+            }
+            TableGeometry table = scratch.getTable();
+            float diagonal = (table.halfLength * table.halfLength + table.halfWidth * table.halfWidth) * 4;
+            if(nearest != Float.MAX_VALUE) score += LEAVE_SCORE * (1.0f - (float) Math.sqrt(nearest / diagonal));
+
+            return score;
+        }
+
+        /*
+         * Picks a random ball which is still on the table, or -1 if there are none
+         */
+        private int randomTarget(BallStateStore balls) {
+            int remaining = 0;
+            for(int i = 0; i < balls.size(); i++) {
+                if(i != cueBall && balls.isActive(i)) remaining++;
+            }
+            if(remaining == 0) return -1;
+
+            int pick = batchRandom.nextInt(remaining);
+            for(int i = 0; i < balls.size(); i++) {
+                if(i != cueBall && balls.isActive(i) && pick-- == 0) return i;
+            }
+            return -1;
+        }
+
+    }
+
+    /*
+     * Creates a copy of the world to search from
+     */
+    private static PhysicsWorld copyOf(PhysicsWorld world) {
+        PhysicsWorld copy = new PhysicsWorld(world.getTable());
+        copy.copyFrom(world);
+        return copy;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public long getTimeBudget() {
+        return timeBudget;
+    }
+
+}
@@ -0,0 +1,413 @@
+package gaskell.sim;
+
+import java.util.Arrays;
+
+/*
+ * @author Connor Gaskell
+ * @description Resolves every ball to ball contact at once with sequential impulses, instead of one pair at a time.
+ *              Each contact is a pair of balls within a small slop of touching. The impulse along the line between their centres is
+ *              found for each contact in turn and the pass is repeated, so a ball touching several others (e.g. the apex ball of the rack
+ *              on the break) shares its impulse between them instead of handing all of it to whichever pair was checked first.
+ *              The total impulse of each contact can only push the balls apart, it is clamped at zero, and the pass stops once the
+ *              impulses stop changing or after the maximum number of iterations.
+ *              Contacts which were approaching bounce apart by the restitution of both balls, contacts which were resting stay together.
+ *              Each ball has its own mass and restitution (see BallStateStore), a pair of equal balls with a restitution of 1 swaps their
+ *              velocity along the line between them, the same as the original collision.
+ *              Impulses are kept between solves and the impulse of a contact which is still there is applied before the first pass
+ *              (warm starting), so a cluster of touching balls starts from the last answer and settles in a few iterations.
+ *              The PhysicsWorld solves several times a step (at each impact and again at the end of each substep) and calls nextStep()
+ *              once a step, each solve merges its contacts into the kept impulses, and an impulse is kept until a whole step passes
+ *              without its contact being solved, so a solve which finds no contacts doesn't forget the others.
+ * References: Iterative Dynamics with Temporal Coherence (Erin Catto, 2005), https://box2d.org/files/ErinCatto_IterativeDynamics_GDC2005.pdf
+ */
+
+public class ContactSolver {
+
+    // Default maximum number of passes over the contacts
+    public static final int DEFAULT_ITERATIONS = 8;
+
+    // Gap between two balls within which they are treated as touching, so a rack with hairline gaps is solved as one cluster
+    public static final float CONTACT_SLOP = 0.005f;
+
+    // Fraction of the last impulse of a contact applied before the first pass
+    public static final float WARM_START = 0.8f;
+
+    // Change in impulse below which the contacts are treated as solved
+    private static final float TOLERANCE = 1e-7f;
+
+    // Maximum number of passes over the contacts
+    private final int maxIterations;
+
+    // Number of contacts gathered by the last solve
+    private int count = 0;
+
+    /*
+     * The contacts, the balls (a is the lower id), the normal from a to b, the inverse mass of each ball,
+     * the mass of the contact along the normal, the velocity the balls should separate at and the total impulse applied
+     */
+    private int[] contactA = new int[32], contactB = new int[32];
+    private float[] normalX = new float[32], normalY = new float[32], normalZ = new float[32];
+    private float[] inverseMassA = new float[32], inverseMassB = new float[32];
+    private float[] normalMass = new float[32], target = new float[32], impulse = new float[32];
+
+    /*
+     * Impulses of the contacts by pair, an open addressed table with the key 0 as an empty slot, and the step each was last solved in.
+     * An impulse not solved in this step or the last is stale, it isn't applied and its slot can be taken by another pair.
+     * used is the number of slots which aren't empty, stale or not.
+     */
+    private long[] warmKeys = new long[64];
+    private float[] warmImpulses = new float[64];
+    private int[] warmSteps = new int[64];
+    private int used = 0;
+
+    // Spare table the fresh impulses are copied into when the table is compacted, swapped with the table afterwards
+    private long[] spareKeys = new long[64];
+    private float[] spareImpulses = new float[64];
+    private int[] spareSteps = new int[64];
+
+    // Current step, counted by nextStep()
+    private int step = 0;
+
+    // Number of passes taken by the last solve
+    private int iterations = 0;
+
+    // Total number of contacts solved and passes taken since the solver was created
+    private long contactsSolved = 0, passesTaken = 0;
+
+    /*
+     * Constructor using the default maximum number of iterations
+     */
+    public ContactSolver() {
+        this(DEFAULT_ITERATIONS);
+    }
+
+    /*
+     * Constructor passes the maximum number of passes over the contacts
+     */
+    public ContactSolver(int maxIterations) {
+        this.maxIterations = Math.max(1, maxIterations);
+    }
+
+    /*
+     * Gathers every contact of an awake ball with one of its neighbours, within the passed slop of touching, and solves them together.
+     * Balls which received an impulse have their spin set from their new velocity and are woken. Returns the number of contacts
+     * which pushed their balls apart.
+     */
+    public int solve(BallStateStore balls, NeighbourList neighbourList, float diameter, float slop) {
+        iterations = 0;
+        gather(balls, neighbourList, diameter + slop);
+        if(count == 0) return finish(balls);
+
+        warmStart(balls);
+
+        /*
+         * Passes over the contacts, each finds the change in impulse which gives the contact its target separating velocity
+         */
+        while(iterations < maxIterations) {
+            iterations++;
+            float largestChange = 0;
+
+            for(int c = 0; c < count; c++) {
+                float separating = separatingVelocity(balls, c);
+                float total = Math.max(impulse[c] + (target[c] - separating) * normalMass[c], 0.0f);
+                float change = total - impulse[c];
+                impulse[c] = total;
+
+                applyImpulse(balls, c, change);
+                largestChange = Math.max(largestChange, Math.abs(change));
+            }
+
+            if(largestChange < TOLERANCE) break;
+        }
+        passesTaken += iterations;
+
+        return finish(balls);
+    }
+
+    /*
+     * Finds the contacts, each pair once, using the same rule as the PhysicsWorld for which side of the neighbour list visits a pair
+     */
+    private void gather(BallStateStore balls, NeighbourList neighbourList, float reach) {
+        count = 0;
+
+        int[] neighbours = neighbourList.getNeighbours();
+        float reachSquared = reach * reach;
+        for(int i = balls.nextAwake(0); i >= 0; i = balls.nextAwake(i + 1)) {
+            for(int from = neighbourList.getStart(i); from < neighbourList.getEnd(i); from += DistanceKernel.BLOCK_SIZE) {
+                int blockCount = Math.min(DistanceKernel.BLOCK_SIZE, neighbourList.getEnd(i) - from);
+                long mask = PhysicsWorld.DISTANCE_KERNEL.overlapMask(balls.posX[i], balls.posY[i], balls.posZ[i], balls.posX, balls.posY, balls.posZ,
+                        neighbours, from, blockCount, reachSquared);
+
+                for(; mask != 0; mask &= mask - 1) {
+                    int j = neighbours[from + Long.numberOfTrailingZeros(mask)];
+                    if(!PhysicsWorld.visitedFrom(balls, j, i)) addContact(balls, Math.min(i, j), Math.max(i, j));
+                }
+            }
+        }
+    }
+
+    /*
+     * Adds a contact between the two balls, working out everything which stays the same between passes
+     */
+    private void addContact(BallStateStore balls, int a, int b) {
+        float nx = balls.posX[b] - balls.posX[a], ny = balls.posY[b] - balls.posY[a], nz = balls.posZ[b] - balls.posZ[a];
+        float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+        if(length == 0) return;
+
+        if(count == contactA.length) grow(count * 2);
+
+        int c = count++;
+        contactA[c] = a;
+        contactB[c] = b;
+        normalX[c] = nx / length;
+        normalY[c] = ny / length;
+        normalZ[c] = nz / length;
+        inverseMassA[c] = 1.0f / balls.mass[a];
+        inverseMassB[c] = 1.0f / balls.mass[b];
+        normalMass[c] = 1.0f / (inverseMassA[c] + inverseMassB[c]);
+        impulse[c] = 0.0f;
+
+        // Balls which are approaching bounce apart by the restitution of both, touching balls which are not approaching stay together
+        float separating = separatingVelocity(balls, c);
+        target[c] = separating < 0 ? -balls.restitution[a] * balls.restitution[b] * separating : 0.0f;
+    }
+
+    /*
+     * Applies part of the impulse each contact ended with in the last solve, for contacts which are still there
+     */
+    private void warmStart(BallStateStore balls) {
+        int slots = warmKeys.length - 1;
+        for(int c = 0; c < count; c++) {
+            long key = keyOf(contactA[c], contactB[c]);
+            for(int slot = hash(key) & slots; warmKeys[slot] != 0; slot = (slot + 1) & slots) {
+                if(warmKeys[slot] == key) {
+                    if(isFresh(slot)) {
+                        impulse[c] = warmImpulses[slot] * WARM_START;
+                        applyImpulse(balls, c, impulse[c]);
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    /*
+     * Velocity the balls of the contact are moving apart at along the normal, negative if they are approaching
+     */
+    private float separatingVelocity(BallStateStore balls, int c) {
+        int a = contactA[c], b = contactB[c];
+        return (balls.velX[b] - balls.velX[a]) * normalX[c] + (balls.velY[b] - balls.velY[a]) * normalY[c] + (balls.velZ[b] - balls.velZ[a]) * normalZ[c];
+    }
+
+    /*
+     * Pushes the balls of the contact apart along the normal, each by the impulse divided by its mass
+     */
+    private void applyImpulse(BallStateStore balls, int c, float amount) {
+        int a = contactA[c], b = contactB[c];
+        float pushA = amount * inverseMassA[c], pushB = amount * inverseMassB[c];
+
+        balls.velX[a] -= pushA * normalX[c];
+        balls.velY[a] -= pushA * normalY[c];
+        balls.velZ[a] -= pushA * normalZ[c];
+        balls.velX[b] += pushB * normalX[c];
+        balls.velY[b] += pushB * normalY[c];
+        balls.velZ[b] += pushB * normalZ[c];
+    }
+
+    /*
+     * Sets the spin of each ball that was pushed, merges the impulses into the table for warm starting the next solves and returns the
+     * number of contacts that pushed
+     */
+    private int finish(BallStateStore balls) {
+        int pushed = 0;
+        for(int c = 0; c < count; c++) {
+            keep(contactA[c], contactB[c], impulse[c]);
+            if(impulse[c] <= 0) continue;
+            pushed++;
+
+            int a = contactA[c], b = contactB[c];
+
+            /*
+             * Set the spinVelocity equal to the movement velocity, as the original collision did.
+             * This is not an accurate way of creating spin velocity however, it gives a somewhat believable simulation
+             */
+            balls.spinX[a] = balls.velX[a];
+            balls.spinY[a] = balls.velY[a];
+            balls.spinZ[a] = balls.velZ[a];
+            balls.spinX[b] = balls.velX[b];
+            balls.spinY[b] = balls.velY[b];
+            balls.spinZ[b] = balls.velZ[b];
+            balls.updateMoving(a);
+            balls.updateMoving(b);
+        }
+
+        contactsSolved += count;
+        return pushed;
+    }
+
+    /*
+     * Keeps the impulse of the pair for warm starting, replacing the one it had. A pair without one is only added if it pushed,
+     * into the first stale slot along its probe or else an empty one.
+     */
+    private void keep(int a, int b, float amount) {
+        long key = keyOf(a, b);
+        int slots = warmKeys.length - 1, free = -1, slot = hash(key) & slots;
+        for(; warmKeys[slot] != 0; slot = (slot + 1) & slots) {
+            if(warmKeys[slot] == key) {
+                warmImpulses[slot] = amount;
+                warmSteps[slot] = step;
+                return;
+            }
+            if(free < 0 && !isFresh(slot)) free = slot;
+        }
+        if(amount <= 0) return;
+
+        if(free < 0) {
+            free = slot;
+            used++;
+        }
+        warmKeys[free] = key;
+        warmImpulses[free] = amount;
+        warmSteps[free] = step;
+
+        // Keep the table at most half full so the probes stay short
+        if(used * 2 > warmKeys.length) compact();
+    }
+
+    /*
+     * Whether the impulse in the slot was solved in this step or the last
+     */
+    private boolean isFresh(int slot) {
+        return step - warmSteps[slot] <= 1;
+    }
+
+    /*
+     * Copies the fresh impulses into the spare table, sized so they fill at most a quarter of it, and swaps it in, dropping the stale ones
+     */
+    private void compact() {
+        int fresh = 0;
+        for(int slot = 0; slot < warmKeys.length; slot++) {
+            if(warmKeys[slot] != 0 && isFresh(slot)) fresh++;
+        }
+
+        int size = 64;
+        while(size < fresh * 4) size *= 2;
+        if(spareKeys.length != size) {
+            spareKeys = new long[size];
+            spareImpulses = new float[size];
+            spareSteps = new int[size];
+        } else {
+            Arrays.fill(spareKeys, 0L);
+        }
+
+        for(int from = 0; from < warmKeys.length; from++) {
+            if(warmKeys[from] == 0 || !isFresh(from)) continue;
+
+            int slot = hash(warmKeys[from]) & (size - 1);
+            while(spareKeys[slot] != 0) slot = (slot + 1) & (size - 1);
+            spareKeys[slot] = warmKeys[from];
+            spareImpulses[slot] = warmImpulses[from];
+            spareSteps[slot] = warmSteps[from];
+        }
+
+        long[] keys = warmKeys;
+        float[] impulses = warmImpulses;
+        int[] steps = warmSteps;
+        warmKeys = spareKeys;
+        warmImpulses = spareImpulses;
+        warmSteps = spareSteps;
+        spareKeys = keys;
+        spareImpulses = impulses;
+        spareSteps = steps;
+        used = fresh;
+    }
+
+    /*
+     * Starts the next step, called by the PhysicsWorld once a step before it solves any contacts.
+     * Impulses not solved in the last step go stale, the table is compacted if stale impulses have filled half of it.
+     */
+    public void nextStep() {
+        step++;
+        if(used * 2 > warmKeys.length) compact();
+    }
+
+    /*
+     * Key of a pair, a is the lower id so b is at least 1 and the key is never 0
+     */
+    private static long keyOf(int a, int b) {
+        return ((long) a << 32) | b;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32);
+    }
+
+    /*
+     * Grows the contact columns to the passed capacity
+     */
+    private void grow(int capacity) {
+        contactA = Arrays.copyOf(contactA, capacity);
+        contactB = Arrays.copyOf(contactB, capacity);
+        normalX = Arrays.copyOf(normalX, capacity);
+        normalY = Arrays.copyOf(normalY, capacity);
+        normalZ = Arrays.copyOf(normalZ, capacity);
+        inverseMassA = Arrays.copyOf(inverseMassA, capacity);
+        inverseMassB = Arrays.copyOf(inverseMassB, capacity);
+        normalMass = Arrays.copyOf(normalMass, capacity);
+        target = Arrays.copyOf(target, capacity);
+        impulse = Arrays.copyOf(impulse, capacity);
+    }
+
+    /*
+     * Forgets every kept impulse, e.g. after the balls have been moved directly
+     */
+    public void clearWarmStart() {
+        Arrays.fill(warmKeys, 0L);
+        used = 0;
+    }
+
+    /*
+     * Copies the kept impulses of the passed solver into this one, so a copy of a world carries on from the same impulses.
+     * Only allocates if the other's table is a different size.
+     */
+    public void copyWarmStartFrom(ContactSolver other) {
+        if(warmKeys.length != other.warmKeys.length) {
+            warmKeys = new long[other.warmKeys.length];
+            warmImpulses = new float[other.warmKeys.length];
+            warmSteps = new int[other.warmKeys.length];
+        }
+        System.arraycopy(other.warmKeys, 0, warmKeys, 0, warmKeys.length);
+        System.arraycopy(other.warmImpulses, 0, warmImpulses, 0, warmKeys.length);
+        System.arraycopy(other.warmSteps, 0, warmSteps, 0, warmKeys.length);
+        used = other.used;
+        step = other.step;
+    }
+
+    /*
+     * Number of contacts gathered by the last solve
+     */
+    public int getContactCount() {
+        return count;
+    }
+
+    /*
+     * Number of passes taken by the last solve
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    public long getContactsSolved() {
+        return contactsSolved;
+    }
+
+    public long getPassesTaken() {
+        return passesTaken;
+    }
+
+}
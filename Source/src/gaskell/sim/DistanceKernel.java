@@ -0,0 +1,50 @@
+package gaskell.sim;
+
+/*
+ * @author Connor Gaskell
+ * @description Tests one ball against a block of other balls at once, returning a mask with a bit set for each ball which is
+ *              closer than the passed distance. Positions are read straight from the flat arrays of a BallStateStore.
+ *              There are two implementations: ScalarDistanceKernel, which tests the balls one at a time and always works, and
+ *              VectorDistanceKernel, which tests a lane of balls with each instruction using the JDK Vector API (jdk.incubator.vector).
+ *              The Vector API is an incubator module, so the vector kernel is kept in its own source folder (simd/src) and loaded by
+ *              name in best(), falling back to the scalar kernel whenever the module or the class is missing.
+ *              Both kernels compute the squared distance with the same operations in the same order, so they always return the same mask.
+ * References: https://openjdk.org/jeps/414
+ */
+
+public interface DistanceKernel {
+
+    // Largest number of balls tested by one call, one per bit of the returned mask
+    int BLOCK_SIZE = 64;
+
+    /*
+     * Tests the point against the balls from to from + count - 1 (count at most BLOCK_SIZE).
+     * Bit k of the result is set if ball from + k is closer to the point than the square root of distanceSquared.
+     */
+    long overlapMask(float x, float y, float z, float[] posX, float[] posY, float[] posZ, int from, int count, float distanceSquared);
+
+    /*
+     * Tests the point against the balls with the ids ids[from] to ids[from + count - 1] (count at most BLOCK_SIZE), e.g. a range of a
+     * NeighbourList. Bit k of the result is set if ball ids[from + k] is closer to the point than the square root of distanceSquared.
+     */
+    long overlapMask(float x, float y, float z, float[] posX, float[] posY, float[] posZ, int[] ids, int from, int count, float distanceSquared);
+
+    // Name of the kernel, for reports
+    String getName();
+
+    /*
+     * The fastest kernel available. The vector kernel is only used if the incubator module has been added to the JVM
+     * (--add-modules jdk.incubator.vector) and the simd classes are on the class path, otherwise the scalar kernel is returned.
+     */
+    static DistanceKernel best() {
+        if(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (DistanceKernel) Class.forName("gaskell.sim.VectorDistanceKernel").getDeclaredConstructor().newInstance();
+            } catch(ReflectiveOperationException | LinkageError e) {
+                // The simd classes were not compiled or can not be loaded, use the scalar kernel
+            }
+        }
+        return ScalarDistanceKernel.INSTANCE;
+    }
+
+}
@@ -0,0 +1,102 @@
+package gaskell.sim;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/*
+ * @author Connor Gaskell
+ * @description Plays a game of pool without a display. Each shot is aimed at a random ball still on the table with a random power,
+ *              and the game is stepped until the balls stop. Only uses the gaskell.sim package, so it runs on servers without Java3D or AWT.
+ *              Run with: java -cp out gaskell.sim.HeadlessRunner [shots] [seed] [replay file]
+ *              If a replay file is passed the game is saved to it, to be played again with ReplayTool.
+ */
+
+public class HeadlessRunner {
+
+    // Default number of shots to play
+    private static final int DEFAULT_SHOTS = 100;
+
+    // Maximum number of ticks a single shot can take before it is cut off
+    private static final int MAX_SHOT_TICKS = 100000;
+
+    // Minimum power of each random shot, on the longest axis
+    private static final float MIN_POWER = 0.03f;
+
+    public static void main(String[] args) throws IOException {
+        int shots = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SHOTS;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+
+        PoolGame game = PoolGame.standard();
+        Random random = new Random(seed);
+
+        long start = System.nanoTime();
+        long totalTicks = 0;
+        int shot = 0;
+        while(shot < shots && !game.isEnded()) {
+            aimAtRandomBall(game, random);
+            game.shoot();
+            int ticks = game.playShot(MAX_SHOT_TICKS);
+            totalTicks += ticks;
+            shot++;
+
+            System.out.println("Shot " + shot + ": " + ticks + " ticks, pocketed " + game.getWorld().getPocketedCount());
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println((game.isEnded() ? "All balls pocketed" : "Stopped") + " after " + shot + " shots, game time " + game.getTime() + "s");
+        System.out.println("Simulated " + totalTicks + " ticks in " + String.format("%.3f", seconds) + "s (" + String.format("%.0f", totalTicks / seconds) + " ticks/s)");
+        System.out.println("Distance kernel: " + PhysicsWorld.DISTANCE_KERNEL.getName());
+
+        if(args.length > 2) {
+            byte[] replay = game.getReplay().toBytes(game.getWorld().getTable());
+            Files.write(Paths.get(args[2]), replay);
+            System.out.println("Saved replay to " + args[2] + " (" + replay.length + " bytes)");
+        }
+    }
+
+    /*
+     * Sets the shot towards a random ball still on the table, with a random power. Also used by the scenario benchmarks.
+     */
+    public static void aimAtRandomBall(PoolGame game, Random random) {
+        BallStateStore balls = game.getWorld().getBalls();
+        int cue = game.getCueBall();
+
+        /*
+         * Pick a random ball which has not been pocketed
+         */
+        int remaining = balls.size() - 1 - balls.getPocketedCount();
+        int target = -1;
+        if(remaining > 0) {
+            int pick = random.nextInt(remaining);
+            for(int i = 0; i < balls.size(); i++) {
+                if(i == cue || !balls.isActive(i)) continue;
+                if(pick-- == 0) {
+                    target = i;
+                    break;
+                }
+            }
+        }
+
+        /*
+         * Direction towards the target, or a random direction if there is no target
+         */
+        float dx, dz;
+        if(target >= 0) {
+            dx = balls.posX[target] - balls.posX[cue];
+            dz = balls.posZ[target] - balls.posZ[cue];
+        } else {
+            double angle = random.nextDouble() * Math.PI * 2;
+            dx = (float) Math.cos(angle);
+            dz = (float) Math.sin(angle);
+        }
+
+        // Scale so the longest axis has the power, as the power is limited on each axis
+        float longest = Math.max(Math.abs(dx), Math.abs(dz));
+        if(longest == 0) longest = 1;
+        float power = MIN_POWER + random.nextFloat() * (Shot.MAX_POWER - MIN_POWER);
+        game.getShot().setPower(dx / longest * power, dz / longest * power);
+    }
+
+}
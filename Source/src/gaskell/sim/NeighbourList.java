@@ -0,0 +1,209 @@
+package gaskell.sim;
+
+import java.util.Arrays;
+
+/*
+ * @author Connor Gaskell
+ * @description Persistent neighbour list (Verlet list) for ball to ball contacts.
+ *              Each ball stores the balls within the collision distance plus a skin margin, found using the SpatialGrid.
+ *              The list only needs rebuilding once a ball has moved more than half of the skin since the last build,
+ *              until then the same list is reused each step and only the balls which are actually close are tested.
+ *              Every pair is stored from both sides, so a moving ball can find all of its neighbours without visiting the sleeping balls.
+ * References: Computer Simulation of Liquids (M. P. Allen and D. J. Tildesley), chapter 5.3
+ */
+
+public class NeighbourList {
+
+    // Extra distance added to the collision distance when building the list
+    private final float skin;
+
+    // Distance between ball centres within which balls are stored as neighbours
+    private final float cutoff;
+
+    // Grid used to find the neighbours when the list is rebuilt
+    private final SpatialGrid grid;
+
+    /*
+     * Position of each ball when the list was last built
+     */
+    private float[] builtX = new float[0], builtZ = new float[0];
+
+    // Number of balls when the list was last built, -1 if it has never been built
+    private int builtCount = -1;
+
+    /*
+     * Neighbours of each ball, stored one after another. The neighbours of ball i are neighbours[start[i]] to neighbours[start[i + 1] - 1].
+     * Each pair is stored in the list of both balls.
+     */
+    private int[] start = new int[1];
+    private int[] neighbours = new int[64];
+
+    // Number of times the list has been updated and rebuilt
+    private long updates = 0, rebuilds = 0;
+
+    /*
+     * Constructor passes the table and the skin margin
+     */
+    public NeighbourList(TableGeometry table, float skin) {
+        this.skin = skin;
+        this.cutoff = table.ballRadius * 2 + skin;
+        this.grid = SpatialGrid.forTable(table, cutoff);
+    }
+
+    /*
+     * Rebuilds the list if any ball has moved more than half of the skin since the last build.
+     * Returns true if the list was rebuilt.
+     */
+    public boolean update(BallStateStore balls) {
+        return update(balls, 0.0f);
+    }
+
+    /*
+     * Rebuilds the list if any ball could move more than half of the skin since the last build, allowing for the passed distance
+     * the balls can still move before the list is next updated. Returns true if the list was rebuilt.
+     */
+    public boolean update(BallStateStore balls, float lookahead) {
+        updates++;
+
+        if(!needsRebuild(balls, lookahead)) return false;
+
+        rebuild(balls);
+        rebuilds++;
+        return true;
+    }
+
+    /*
+     * Forces the list to be rebuilt on the next update, e.g. after balls have been moved directly or have left the table
+     */
+    public void invalidate() {
+        builtCount = -1;
+    }
+
+    /*
+     * Checks how far each awake ball has moved since the list was built.
+     * Sleeping balls are skipped, they were checked while they were moving and have not moved since.
+     * Balls which are moved directly (reset) must invalidate() the list instead.
+     */
+    private boolean needsRebuild(BallStateStore balls, float lookahead) {
+        int count = balls.size();
+        if(count != builtCount) return true;
+
+        float allowed = skin * 0.5f - lookahead;
+        if(allowed <= 0) return true;
+
+        float limit = allowed * allowed;
+        float[] posX = balls.posX, posZ = balls.posZ;
+        for(int i = balls.nextAwake(0); i >= 0; i = balls.nextAwake(i + 1)) {
+            float dx = posX[i] - builtX[i];
+            float dz = posZ[i] - builtZ[i];
+            if(dx * dx + dz * dz > limit) return true;
+        }
+        return false;
+    }
+
+    /*
+     * Finds the neighbours of every ball using the grid, storing those within the cutoff distance
+     */
+    private void rebuild(BallStateStore balls) {
+        int count = balls.size();
+        float[] posX = balls.posX, posZ = balls.posZ;
+
+        if(builtX.length < count) {
+            builtX = new float[count * 2];
+            builtZ = new float[count * 2];
+            start = new int[count * 2 + 1];
+        }
+
+        // Remember where each ball was when the list was built
+        System.arraycopy(posX, 0, builtX, 0, count);
+        System.arraycopy(posZ, 0, builtZ, 0, count);
+        builtCount = count;
+
+        grid.build(balls);
+        int pairCount = grid.findPairs();
+        int[] pairA = grid.getPairA(), pairB = grid.getPairB();
+
+        /*
+         * Count the neighbours of each ball (offset by one for the prefix sum), dropping pairs that are further apart than the cutoff.
+         * Only the distance across the table is used, as the height of a ball changes without it moving across the table.
+         */
+        Arrays.fill(start, 0, count + 1, 0);
+        float cutoffSquared = cutoff * cutoff;
+        int kept = 0;
+        for(int p = 0; p < pairCount; p++) {
+            int a = pairA[p], b = pairB[p];
+            float dx = posX[a] - posX[b], dz = posZ[a] - posZ[b];
+            if(dx * dx + dz * dz < cutoffSquared) {
+                start[a + 1]++;
+                start[b + 1]++;
+                pairA[kept] = a;
+                pairB[kept] = b;
+                kept++;
+            }
+        }
+
+        // Prefix sum of the counts gives the start of each ball's neighbours
+        for(int i = 1; i <= count; i++) {
+            start[i] += start[i - 1];
+        }
+
+        if(neighbours.length < kept * 2) neighbours = new int[kept * 4];
+
+        /*
+         * Place each neighbour into the list of both balls, start[i] is moved forward as neighbours are placed and then shifted back afterwards
+         */
+        for(int p = 0; p < kept; p++) {
+            neighbours[start[pairA[p]]++] = pairB[p];
+            neighbours[start[pairB[p]]++] = pairA[p];
+        }
+        for(int i = count; i > 0; i--) {
+            start[i] = start[i - 1];
+        }
+        start[0] = 0;
+    }
+
+    /*
+     * Index of the first neighbour of the ball
+     */
+    public int getStart(int i) {
+        return start[i];
+    }
+
+    /*
+     * Index after the last neighbour of the ball
+     */
+    public int getEnd(int i) {
+        return start[i + 1];
+    }
+
+    public int[] getNeighbours() {
+        return neighbours;
+    }
+
+    /*
+     * Number of pairs in the list, each pair is stored twice
+     */
+    public int getPairCount() {
+        return builtCount <= 0 ? 0 : start[builtCount] / 2;
+    }
+
+    public long getUpdates() {
+        return updates;
+    }
+
+    public long getRebuilds() {
+        return rebuilds;
+    }
+
+    /*
+     * Fraction of updates which rebuilt the list, used for tuning the skin
+     */
+    public double getRebuildFrequency() {
+        return updates == 0 ? 0 : (double) rebuilds / updates;
+    }
+
+    public float getSkin() {
+        return skin;
+    }
+
+}
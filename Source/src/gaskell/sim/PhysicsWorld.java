@@ -0,0 +1,575 @@
+package gaskell.sim;
+
+/*
+ * @author Connor Gaskell
+ * @description Owns the state of every ball on the table (in a BallStateStore) and steps all of them once per tick.
+ *              Each step runs in a fixed order: resets, friction, integration, ball to ball collisions, pockets and finally cushions.
+ *              Fast steps are split into substeps so no ball moves more than half its radius at a time, and within each substep the balls
+ *              are advanced to the exact time of impact of the next ball to ball or ball to cushion contact, so hard shots cannot tunnel.
+ *              Every pair of balls is only visited once per step, previously each ball had its own Movement and BallCollision behaviour
+ *              which checked against the whole rack, so each pair was resolved from both sides.
+ *              Candidate pairs come from a NeighbourList, built with a SpatialGrid broadphase and only rebuilt once the balls have moved
+ *              far enough, so most steps only test the few pairs of balls which are actually close.
+ *              Ball to ball contacts are resolved together by a ContactSolver, using the mass and restitution of each ball.
+ *              Cushions and pockets are looked up in the table's TableDistanceField, so their cost does not depend on the shape of the table.
+ *              Balls which have slowed below SLEEP_SPEED are stopped and go to sleep, only awake balls are integrated and tested, so a step
+ *              with every ball asleep (e.g. while the player is aiming) returns straight away. Pocketed balls sleep and leave the neighbour list.
+ *              The world does not depend on the scene graph, it is stepped by the PhysicsUpdate behaviour in game or by run() when headless.
+ * @reference Credit to Brian McCutchon (http://brianmccutchon.com/) for his collision implementation which the ball collisions were derived from. (https://github.com/bmccutchon/Pool3D/blob/master/Pool3D/src/com/brianmccutchon/pool3d/Physics.java)
+ */
+
+public class PhysicsWorld {
+
+    // Linear friction removed from the velocity and spin velocity of each ball per tick
+    public static final float FRICTION = 0.0005f, SPIN_FRICTION = 0.0001f;
+
+    // Speed across the table below which a ball is stopped and goes to sleep, a little over the friction of two ticks
+    public static final float SLEEP_SPEED = 0.001f;
+
+    // Height below which a ball has fallen off the table
+    public static final float FALL_HEIGHT = -0.35f;
+
+    // Height a pocketed ball is hidden at
+    public static final float HIDDEN_HEIGHT = -10.0f;
+
+    // Seconds added to the game time when the white ball is pocketed
+    public static final int CUE_BALL_PENALTY = 10;
+
+    // Default skin margin of the neighbour list, the furthest a ball can be hit in a single step
+    public static final float DEFAULT_SKIN = 0.1f;
+
+    // Maximum number of substeps a single step can be split into
+    public static final int MAX_SUBSTEPS = 16;
+
+    // Maximum number of impacts resolved exactly within a substep, any left over are resolved at the end of the substep
+    public static final int MAX_IMPACTS = 32;
+
+    // Kernel used to test a ball against all of its neighbours at once, vectorized when the Vector API is available
+    public static final DistanceKernel DISTANCE_KERNEL = DistanceKernel.best();
+
+    // The geometry of the table the balls are on
+    private final TableGeometry table;
+
+    // Distance field of the table's cushions and pockets
+    private final TableDistanceField field;
+
+    // The state of every ball, indexed by the id returned from addBall()
+    private final BallStateStore balls;
+
+    // Neighbour list of the balls close enough to collide, rebuilt using a grid broadphase
+    private final NeighbourList neighbourList;
+
+    // Resolves every ball to ball contact together
+    private final ContactSolver contactSolver = new ContactSolver();
+
+    // Number of candidate pairs tested during the last step
+    private int pairsTested = 0;
+
+    // Number of contacts the ContactSolver pushed apart during the last step
+    private int contactsResolved = 0;
+
+    // Number of substeps taken by the last step
+    private int substeps = 1;
+
+    /*
+     * The next impact found by findImpact(), the fraction of the remaining time it occurs at and the balls involved.
+     * impactB is -1 for an impact with a cushion.
+     */
+    private float impactTime;
+    private int impactA, impactB;
+
+    // Set when the balls should be moved back to their origin at the start of the next step
+    private volatile boolean resetRequested = false;
+
+    // Seconds of penalty time accumulated since the last call to takeTimePenalty()
+    private int timePenalty = 0;
+
+    // Number of steps taken since the world was created
+    private long tick = 0;
+
+    // Number of resets applied since the world was created
+    private long resetsApplied = 0;
+
+    /*
+     * Constructor passes the table geometry, using the default neighbour list skin
+     */
+    public PhysicsWorld(TableGeometry table) {
+        this(table, DEFAULT_SKIN);
+    }
+
+    /*
+     * Constructor passes the table geometry and the skin margin of the neighbour list
+     */
+    public PhysicsWorld(TableGeometry table, float skin) {
+        this.table = table;
+        this.field = table.getDistanceField();
+        this.balls = new BallStateStore(16);
+        this.neighbourList = new NeighbourList(table, skin);
+    }
+
+    /*
+     * Copies the balls and the contact impulses of the passed world into this one, which should have the same table.
+     * Any pending reset and penalty time is not copied, so the copy can be stepped to see the outcome of a shot.
+     */
+    public void copyFrom(PhysicsWorld other) {
+        balls.copyFrom(other.balls);
+        neighbourList.invalidate();
+        contactSolver.copyWarmStartFrom(other.contactSolver);
+        resetRequested = false;
+        timePenalty = 0;
+        tick = other.tick;
+    }
+
+    /*
+     * Saves the balls into the passed snapshot, which must have room for every ball
+     */
+    public void save(TableSnapshot snapshot) {
+        snapshot.saveBalls(balls);
+    }
+
+    /*
+     * Puts the balls back as they were when the passed snapshot was saved from this world (or a copy of it).
+     * Any pending reset and penalty time is dropped and the neighbour list and contact impulses start again, the tick keeps counting.
+     */
+    public void restore(TableSnapshot snapshot) {
+        snapshot.restoreBalls(balls);
+        neighbourList.invalidate();
+        contactSolver.clearWarmStart();
+        resetRequested = false;
+        timePenalty = 0;
+    }
+
+    /*
+     * Adds a ball to the world at the passed position and returns the id of the ball
+     */
+    public int addBall(float x, float y, float z, int kind, int number) {
+        return balls.add(x, y, z, kind, number);
+    }
+
+    /*
+     * Steps every ball once, in a fixed order.
+     */
+    public void step() {
+        // Move the balls back to their origin if a reset was requested
+        if(resetRequested) applyReset();
+
+        pairsTested = 0;
+        contactsResolved = 0;
+
+        // The contact impulses solved in this step are kept for warm starting the next, older ones go stale
+        contactSolver.nextStep();
+
+        // Nothing can change while every ball is asleep
+        if(balls.getAwakeCount() == 0) {
+            substeps = 0;
+            tick++;
+            return;
+        }
+
+        /*
+         * Apply friction to each awake ball and find the fastest ball
+         */
+        float maxSpeed = 0;
+        for(int i = balls.nextAwake(0); i >= 0; i = balls.nextAwake(i + 1)) {
+            applyFriction(i);
+            float speed = balls.velX[i] * balls.velX[i] + balls.velY[i] * balls.velY[i] + balls.velZ[i] * balls.velZ[i];
+            if(speed > maxSpeed) maxSpeed = speed;
+        }
+        maxSpeed = (float) Math.sqrt(maxSpeed);
+
+        /*
+         * Split the step so the fastest ball moves at most half of its radius per substep, a slow step is a single substep.
+         */
+        float maxTravel = table.ballRadius * 0.5f;
+        substeps = Math.min(MAX_SUBSTEPS, Math.max(1, (int) Math.ceil(maxSpeed / maxTravel)));
+        float dt = 1.0f / substeps;
+
+        for(int s = 0; s < substeps; s++) {
+            substep(dt, maxSpeed * dt);
+        }
+
+        tick++;
+    }
+
+    /*
+     * Advances every ball by the passed fraction of a step.
+     * The balls are moved to the time of each impact in turn, which is resolved before moving on through the rest of the substep.
+     */
+    private void substep(float dt, float maxTravel) {
+        /*
+         * Rebuild the neighbour list if the balls have moved far enough, allowing for the distance they can move during this substep.
+         * Every pair is stored from both sides, only the awake balls are visited and a pair is resolved from one side only (see visitedFrom()):
+         * from the lower id when both balls are awake, from the awake ball when the other is asleep.
+         */
+        neighbourList.update(balls, maxTravel);
+        pairsTested += neighbourList.getPairCount();
+
+        /*
+         * Move to each impact in time order, resolving it before looking for the next one
+         */
+        float remaining = dt;
+        for(int impacts = 0; impacts < MAX_IMPACTS && remaining > 0; impacts++) {
+            if(!findImpact(remaining)) break;
+
+            float time = impactTime * remaining;
+            for(int i = balls.nextAwake(0); i >= 0; i = balls.nextAwake(i + 1)) {
+                moveObject(i, time);
+            }
+            remaining -= time;
+
+            if(impactB >= 0) {
+                // Solve the impact together with every other contact, so balls touching several others (e.g. on the break) share the impulse
+                contactsResolved += contactSolver.solve(balls, neighbourList, table.ballRadius * 2, ContactSolver.CONTACT_SLOP);
+            } else {
+                cushionCollision(impactA);
+            }
+        }
+
+        // Move through the rest of the substep
+        for(int i = balls.nextAwake(0); i >= 0; i = balls.nextAwake(i + 1)) {
+            moveObject(i, remaining);
+        }
+
+        /*
+         * Resolve any balls still intersecting, e.g. if there were more impacts in the substep than MAX_IMPACTS
+         */
+        contactsResolved += contactSolver.solve(balls, neighbourList, table.ballRadius * 2, 0.0f);
+
+        /*
+         * Check each awake ball against the pockets and then the cushions
+         */
+        for(int i = balls.nextAwake(0); i >= 0; i = balls.nextAwake(i + 1)) {
+            pocketCollision(i);
+
+            // Check the cushions unless the ball is falling and providing the ball is active
+            if(balls.velY[i] <= 0.01f && balls.isActive(i)) wallCollision(i);
+        }
+    }
+
+    /*
+     * Finds the earliest impact within the passed time, between two neighbouring balls or a ball and a cushion.
+     * The result is stored in impactTime (as a fraction of the passed time), impactA and impactB. Returns false if there is no impact.
+     */
+    private boolean findImpact(float time) {
+        int[] neighbours = neighbourList.getNeighbours();
+        impactTime = 2.0f;
+
+        for(int i = balls.nextAwake(0); i >= 0; i = balls.nextAwake(i + 1)) {
+            /*
+             * Swept sphere test against each neighbour, two sleeping balls can not hit each other so only awake balls are visited
+             */
+            for(int n = neighbourList.getStart(i); n < neighbourList.getEnd(i); n++) {
+                int j = neighbours[n];
+                if(visitedFrom(balls, j, i)) continue;
+
+                float t = timeOfImpact(i, j, time);
+                if(t < impactTime) {
+                    impactTime = t;
+                    impactA = Math.min(i, j);
+                    impactB = Math.max(i, j);
+                }
+            }
+
+            /*
+             * Sphere traced test against the cushions, for active balls which are not falling.
+             * The cushions are open at the pockets, so balls heading into a pocket mouth carry on instead of bouncing.
+             */
+            if(balls.velY[i] <= 0.01f && balls.isActive(i)) {
+                float t = field.timeOfImpact(balls.posX[i], balls.posZ[i], balls.velX[i] * time, balls.velZ[i] * time);
+                if(t < impactTime) {
+                    impactTime = t;
+                    impactA = i;
+                    impactB = -1;
+                }
+            }
+        }
+
+        return impactTime <= 1.0f;
+    }
+
+    /*
+     * Each pair is stored from both sides of the neighbour list. A pair of awake balls is only visited from the ball with the lower id,
+     * a pair with a sleeping ball is visited from the awake ball. Returns true if the pair of neighbour j and ball i has already been visited from j.
+     */
+    static boolean visitedFrom(BallStateStore balls, int j, int i) {
+        return j < i && balls.isAwake(j);
+    }
+
+    /*
+     * Swept sphere time of impact between two balls moving over the passed time.
+     * Solves |p + v t|^2 = d^2 for the relative position p and relative movement v, returning the fraction of the time at which
+     * the balls first touch, or a value above 1 if they do not touch. Balls which are already touching but moving apart are ignored.
+     */
+    public float timeOfImpact(int a, int b, float time) {
+        float px = balls.posX[b] - balls.posX[a];
+        float py = balls.posY[b] - balls.posY[a];
+        float pz = balls.posZ[b] - balls.posZ[a];
+        float vx = (balls.velX[b] - balls.velX[a]) * time;
+        float vy = (balls.velY[b] - balls.velY[a]) * time;
+        float vz = (balls.velZ[b] - balls.velZ[a]) * time;
+
+        // Balls which are not moving towards each other can not collide
+        float b2 = px * vx + py * vy + pz * vz;
+        if(b2 >= 0) return 2.0f;
+
+        float diameter = table.ballRadius * 2;
+        float c = px * px + py * py + pz * pz - diameter * diameter;
+
+        // Already touching and moving together
+        if(c <= 0) return 0.0f;
+
+        float a2 = vx * vx + vy * vy + vz * vz;
+        float discriminant = b2 * b2 - a2 * c;
+        if(discriminant < 0) return 2.0f;
+
+        return (float) ((-b2 - Math.sqrt(discriminant)) / a2);
+    }
+
+    /*
+     * Steps the world the passed number of times, used when there is no scene graph to drive the world.
+     */
+    public void run(int ticks) {
+        for(int i = 0; i < ticks; i++) {
+            step();
+        }
+    }
+
+    /*
+     * Steps the world until all of the balls have stopped, or the maximum number of ticks is reached.
+     * Returns the number of ticks taken.
+     */
+    public int stepUntilRest(int maxTicks) {
+        int ticks = 0;
+        while(ticks < maxTicks) {
+            step();
+            ticks++;
+            if(isAtRest()) break;
+        }
+        return ticks;
+    }
+
+    /*
+     * Applies linear friction to the moving ball.
+     */
+    public void applyFriction(int i) {
+        float[] velX = balls.velX, velZ = balls.velZ;
+
+        /*
+         * Use the signum function to determine whether the value is positive/negative, then the max function stops the velocity changing direction.
+         */
+        velX[i] = Math.signum(velX[i]) * Math.max(0, Math.abs(velX[i]) - FRICTION);
+        velZ[i] = Math.signum(velZ[i]) * Math.max(0, Math.abs(velZ[i]) - FRICTION);
+
+        // Stop balls which are barely moving across the table, so they go to sleep
+        if(balls.velY[i] == 0 && velX[i] * velX[i] + velZ[i] * velZ[i] < SLEEP_SPEED * SLEEP_SPEED) {
+            velX[i] = 0;
+            velZ[i] = 0;
+        }
+
+        /*
+         * Same as above except for the spinVelocity.
+         */
+        balls.spinX[i] = Math.signum(balls.spinX[i]) * Math.max(0, Math.abs(balls.spinX[i]) - SPIN_FRICTION);
+        balls.spinY[i] = Math.signum(balls.spinY[i]) * Math.max(0, Math.abs(balls.spinY[i]) - SPIN_FRICTION);
+        balls.spinZ[i] = Math.signum(balls.spinZ[i]) * Math.max(0, Math.abs(balls.spinZ[i]) - SPIN_FRICTION);
+
+        // Keep the moving flag up to date now the ball may have stopped
+        balls.updateMoving(i);
+    }
+
+    /*
+     * Adds the velocity of the ball, for the passed fraction of a step, to its position and handles balls falling off the table.
+     */
+    public void moveObject(int i, float dt) {
+        float[] posY = balls.posY;
+
+        // Add the velocity to the position
+        balls.posX[i] += balls.velX[i] * dt;
+        posY[i] += balls.velY[i] * dt;
+        balls.posZ[i] += balls.velZ[i] * dt;
+
+        boolean cueBall = balls.isCueBall(i);
+
+        // If the white ball has fallen off the table, put it back at its origin and add the time penalty
+        if(cueBall && posY[i] < FALL_HEIGHT) {
+            balls.resetBall(i);
+            neighbourList.invalidate();
+            timePenalty += CUE_BALL_PENALTY;
+        }
+
+        // If any ball except the white ball has fallen off the table, hide it and put it to sleep until the balls are reset
+        if(!cueBall && posY[i] < FALL_HEIGHT) {
+            posY[i] = HIDDEN_HEIGHT;
+            balls.sleep(i);
+        }
+
+        // Keep balls on the table surface unless they are falling into a pocket
+        if(posY[i] > 0.02f || (posY[i] < 0 && !cueBall && !balls.isPocketed(i))) {
+            posY[i] = 0;
+        }
+    }
+
+    /*
+     * Checks for an intersection between two balls
+     * References: Pool3D by Brian McCutchon (https://github.com/bmccutchon/Pool3D)
+     */
+    public boolean intersects(int a, int b) {
+        float xDiff = balls.posX[a] - balls.posX[b];
+        float yDiff = balls.posY[a] - balls.posY[b];
+        float zDiff = balls.posZ[a] - balls.posZ[b];
+
+        // The balls intersect if the distance between them is less than the diameter of a ball
+        float diameter = table.ballRadius * 2;
+        return (xDiff * xDiff) + (yDiff * yDiff) + (zDiff * zDiff) < diameter * diameter;
+    }
+
+    /*
+     * Checks the ball against the pocket nearest to it, found from the distance field, a captured ball is pulled towards the pocket and falls.
+     */
+    private void pocketCollision(int i) {
+        float x = balls.posX[i], y = balls.posY[i], z = balls.posZ[i];
+
+        int p = field.getPocket(field.nodeAt(x, z));
+        if(p < 0) return;
+
+        float xDiff = table.pocketX[p] - x;
+        float zDiff = table.pocketZ[p] - z;
+
+        if((xDiff * xDiff) + (y * y) + (zDiff * zDiff) < table.pocketRadius * table.pocketRadius) {
+            /*
+             * Move the ball towards the pocket and set the Y movement to -0.02f (representing gravity)
+             */
+            balls.setVelocity(i, xDiff * 0.5f, -0.02f, zDiff * 0.5f);
+
+            // The ball is no longer active on the table, the neighbour list is rebuilt without it
+            if(balls.isActive(i)) {
+                BallStateStore.clear(balls.active, i);
+                neighbourList.invalidate();
+            }
+
+            // Count the ball as pocketed, unless it is the white ball
+            if(!balls.isCueBall(i)) balls.markPocketed(i);
+        }
+    }
+
+    /*
+     * Bounces the ball off a cushion it has passed, if it is still moving into it.
+     */
+    public void wallCollision(int i) {
+        if(field.distance(balls.posX[i], balls.posZ[i]) < 0) cushionCollision(i);
+    }
+
+    /*
+     * Reflects the velocity of the ball off the nearest cushion, using the normal from the distance field.
+     * Comparing the velocity with the normal prevents the ball sticking to the cushion, a ball already moving away is left alone.
+     */
+    private void cushionCollision(int i) {
+        int node = field.nodeAt(balls.posX[i], balls.posZ[i]);
+        float nx = field.getNormalX(node), nz = field.getNormalZ(node);
+
+        float along = balls.velX[i] * nx + balls.velZ[i] * nz;
+        if(along < 0) {
+            balls.velX[i] -= 2 * along * nx;
+            balls.velZ[i] -= 2 * along * nz;
+        }
+    }
+
+    /*
+     * Hits the ball with the passed velocity across the table
+     */
+    public void strike(int i, float velocityX, float velocityZ) {
+        balls.setVelocity(i, velocityX, balls.velY[i], velocityZ);
+    }
+
+    /*
+     * Requests every ball is moved back to its origin at the start of the next step.
+     * This can be called from any thread, e.g. the KeyListener.
+     */
+    public void requestReset() {
+        resetRequested = true;
+    }
+
+    /*
+     * Moves every ball back to its origin and clears the pocketed balls
+     */
+    private void applyReset() {
+        balls.resetAll();
+        contactSolver.clearWarmStart();
+        neighbourList.invalidate();
+        timePenalty = 0;
+        resetRequested = false;
+        resetsApplied++;
+    }
+
+    /*
+     * Returns true when no ball is moving across the table, a counter is kept by the BallStateStore so this does not visit the balls
+     */
+    public boolean isAtRest() {
+        return balls.getMovingCount() == 0;
+    }
+
+    /*
+     * Returns true when every ball except the white ball has been pocketed
+     */
+    public boolean allPocketed() {
+        return balls.size() > 0 && balls.getPocketedCount() == balls.size() - 1;
+    }
+
+    /*
+     * Returns the penalty time accumulated since the last call and clears it
+     */
+    public int takeTimePenalty() {
+        int penalty = timePenalty;
+        timePenalty = 0;
+        return penalty;
+    }
+
+    public BallStateStore getBalls() {
+        return balls;
+    }
+
+    public int getBallCount() {
+        return balls.size();
+    }
+
+    public int getPocketedCount() {
+        return balls.getPocketedCount();
+    }
+
+    public ContactSolver getContactSolver() {
+        return contactSolver;
+    }
+
+    public int getAwakeCount() {
+        return balls.getAwakeCount();
+    }
+
+    public int getPairsTested() {
+        return pairsTested;
+    }
+
+    public int getContactsResolved() {
+        return contactsResolved;
+    }
+
+    public int getSubsteps() {
+        return substeps;
+    }
+
+    public NeighbourList getNeighbourList() {
+        return neighbourList;
+    }
+
+    public long getResetsApplied() {
+        return resetsApplied;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public TableGeometry getTable() {
+        return table;
+    }
+
+}
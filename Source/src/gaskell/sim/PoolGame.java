@@ -0,0 +1,357 @@
+package gaskell.sim;
+
+import gaskell.profiling.PhysicsStepEvent;
+import gaskell.profiling.ShotEvent;
+import jdk.jfr.EventType;
+
+/*
+ * @author Connor Gaskell
+ * @description The state of a game of pool, independent of the scene graph: the PhysicsWorld with the rack of balls, the current shot,
+ *              the game timer and whether the game has started, ended and the player can shoot.
+ *              In game the behaviours drive it (PhysicsUpdate steps it, GameTimer ticks the timer, Cue aims and PickMouseBehavior shoots)
+ *              and the scene graph only mirrors its state. Without a display it can be driven directly, see HeadlessRunner.
+ *              Every shot and reset is recorded, so the game can be saved as a Replay and played again exactly (see ReplayPlayer).
+ *              The table is saved into a TableHistory before every shot, so shots can be taken back with undo(), several levels deep.
+ *              Each step and shot is committed as a Java Flight Recorder event (see gaskell.profiling) while a recording is running.
+ *              Only depends on the JDK, so it runs on servers without Java3D, AWT or OpenGL.
+ */
+
+public class PoolGame {
+
+    // Number of steps in a second of game time, the rate the PhysicsUpdate behaviour steps the world at
+    public static final int TICKS_PER_SECOND = 60;
+
+    // Number of shots which can be taken back
+    public static final int UNDO_LEVELS = 16;
+
+    /*
+     * The flight recorder's types of the step and shot events, an event is only allocated while its type is enabled in a running recording
+     */
+    private static final EventType STEP_EVENT = EventType.getEventType(PhysicsStepEvent.class);
+    private static final EventType SHOT_EVENT = EventType.getEventType(ShotEvent.class);
+
+    // The balls on the table
+    private final PhysicsWorld world;
+
+    // The layout the balls started in
+    private final Rack rack;
+
+    // The id of the white ball in the world
+    private final int cueBall;
+
+    // The shot currently being aimed
+    private final Shot shot = new Shot();
+
+    // Seconds the current game has been running, plus any penalty time
+    private int time = 0;
+
+    // Whether the game has started (the first shot has been taken) and whether it has ended (every ball has been pocketed)
+    private boolean started = false, ended = false;
+
+    // Whether the player can hit the white ball, only once every ball has stopped
+    private boolean canShoot = true;
+
+    // Number of times the game has been reset or had a shot taken back, so work started before (e.g. a shot search) can tell it is out of date
+    private volatile int resets = 0;
+
+    // Whether the game should be reset or a shot taken back at the start of the next step
+    private volatile boolean resetRequested = false, undoRequested = false;
+
+    // The table before each of the last UNDO_LEVELS shots
+    private final TableHistory history;
+
+    // Number of shots taken since the game was created
+    private int shots = 0;
+
+    // Records the shots and resets
+    private final ReplayRecorder recorder;
+
+    // Archive the position of every ball is written to after each step, null if the game is not being archived
+    private volatile TrajectoryArchiveWriter archive;
+
+    /*
+     * Constructor passes the table, the standard rack is placed onto it
+     */
+    public PoolGame(TableGeometry table) {
+        this(table, Rack.standard(table));
+    }
+
+    /*
+     * Constructor passes the table and the rack to place onto it
+     */
+    public PoolGame(TableGeometry table, Rack rack) {
+        this.world = new PhysicsWorld(table);
+        this.rack = rack;
+        this.cueBall = rack.addTo(world);
+        this.recorder = new ReplayRecorder(rack);
+        this.history = new TableHistory(UNDO_LEVELS, world.getBallCount());
+    }
+
+    /*
+     * A game on the standard table with the standard rack
+     */
+    public static PoolGame standard() {
+        return new PoolGame(TableGeometry.standard());
+    }
+
+    /*
+     * Steps the world once, adding any penalty time and updating whether the player can shoot.
+     * Returns true if the game ended during this step.
+     */
+    public boolean step() {
+        /*
+         * Reset the game or take the last shot back if it was requested, e.g. from the KeyListener.
+         * A reset clears the history, so an undo requested with it has nothing to take back.
+         */
+        if(resetRequested) {
+            resetRequested = false;
+            undoRequested = false;
+            applyReset();
+        } else if(undoRequested) {
+            undoRequested = false;
+            undo();
+        }
+
+        long tick = world.getTick();
+        long resetsApplied = world.getResetsApplied();
+
+        if(STEP_EVENT.isEnabled()) {
+            PhysicsStepEvent event = new PhysicsStepEvent();
+            event.begin();
+            world.step();
+            event.end();
+            if(event.shouldCommit()) {
+                event.tick = tick;
+                event.ballCount = world.getBallCount() - world.getPocketedCount();
+                event.awakeBalls = world.getAwakeCount();
+                event.substeps = world.getSubsteps();
+                event.pairsTested = world.getPairsTested();
+                event.contactsResolved = world.getContactsResolved();
+                event.commit();
+            }
+        } else {
+            world.step();
+        }
+
+        // Record a reset on the step which applied it
+        if(world.getResetsApplied() != resetsApplied) recorder.reset(tick);
+
+        // Hand the positions to the archive, this only copies them, they are written on the archive's own thread
+        TrajectoryArchiveWriter currentArchive = archive;
+        if(currentArchive != null) currentArchive.capture(world.getTick(), world.getBalls());
+
+        // Add any penalty time, e.g. from the white ball being pocketed
+        time += world.takeTimePenalty();
+
+        // Ensure all the balls have stopped moving, then allow the player to hit the ball again
+        if(world.isAtRest()) canShoot = true;
+
+        /*
+         * If all of the balls have been pocketed, then the game has ended
+         */
+        if(world.allPocketed() && !ended) {
+            ended = true;
+            return true;
+        }
+        return false;
+    }
+
+    /*
+     * Adds a second to the game timer, if the game has started and not ended
+     */
+    public void tickSecond() {
+        if(started && !ended) time++;
+    }
+
+    /*
+     * Aims the shot at the passed point on the table, from the current position of the white ball
+     */
+    public void aim(float aimX, float aimZ) {
+        BallStateStore balls = world.getBalls();
+        shot.aim(balls.posX[cueBall], balls.posZ[cueBall], aimX, aimZ);
+    }
+
+    /*
+     * Hits the white ball with the current shot, if the player can shoot and the game hasn't ended.
+     * Returns true if the shot was taken.
+     */
+    public boolean shoot() {
+        if(!canShoot || ended) return false;
+
+        // Only allocated while a recording is running
+        ShotEvent event = SHOT_EVENT.isEnabled() ? new ShotEvent() : null;
+        if(event != null) event.begin();
+
+        // Save the table as it was before the shot, so the shot can be taken back
+        history.push(this);
+
+        // Sets the velocity of the white ball to the power of the shot
+        world.strike(cueBall, shot.getPowerX(), shot.getPowerZ());
+        recorder.shot(world.getTick(), shot.getPowerX(), shot.getPowerZ());
+
+        canShoot = false;
+        started = true;
+        shots++;
+
+        if(event != null) {
+            event.end();
+            if(event.shouldCommit()) {
+                event.tick = world.getTick();
+                event.shot = shots;
+                event.powerX = shot.getPowerX();
+                event.powerZ = shot.getPowerZ();
+                event.commit();
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Steps until every ball has stopped after a shot, or the maximum number of ticks is reached, ticking the game timer every
+     * TICKS_PER_SECOND steps. Used when there is no display to drive the game. Returns the number of ticks taken.
+     */
+    public int playShot(int maxTicks) {
+        int ticks = 0;
+        while(ticks < maxTicks) {
+            step();
+            ticks++;
+            if(ticks % TICKS_PER_SECOND == 0) tickSecond();
+            if(canShoot) break;
+        }
+        return ticks;
+    }
+
+    /*
+     * Resets the game at the start of the next step, the balls are moved back to their origin, the timer is cleared and the shots
+     * taken so far can no longer be taken back. This can be called from any thread, e.g. the KeyListener.
+     */
+    public void reset() {
+        resetRequested = true;
+    }
+
+    /*
+     * Applies a requested reset, on the thread which steps the game so it is never mixed with a step, an undo or a restore.
+     * The world moves the balls back during this step.
+     */
+    private void applyReset() {
+        world.requestReset();
+        history.clear();
+        started = false;
+        ended = false;
+        time = 0;
+        resets++;
+    }
+
+    /*
+     * Takes the last shot back, putting the balls, the timer and the shot being aimed back as they were just before it was taken.
+     * Returns false if there is no shot to take back. Must be called on the thread which steps the game, see requestUndo().
+     */
+    public boolean undo() {
+        TableSnapshot snapshot = history.pop();
+        if(snapshot == null) return false;
+
+        restore(snapshot);
+        recorder.undo(world.getTick());
+        return true;
+    }
+
+    /*
+     * Takes the last shot back at the start of the next step.
+     * This can be called from any thread, e.g. the KeyListener.
+     */
+    public void requestUndo() {
+        undoRequested = true;
+    }
+
+    /*
+     * Saves the balls and the game state into the passed snapshot
+     */
+    public void save(TableSnapshot snapshot) {
+        world.save(snapshot);
+        snapshot.saveGame(time, shots, started, ended, canShoot, shot);
+    }
+
+    /*
+     * Puts the balls and the game state back as they were when the passed snapshot was saved from this game.
+     * Counts as a reset for getResets() and getVersion(), so anything worked out from the table before is out of date.
+     * Must be called on the thread which steps the game.
+     */
+    public void restore(TableSnapshot snapshot) {
+        world.restore(snapshot);
+        if(snapshot.hasGame()) {
+            time = snapshot.getTime();
+            shots = snapshot.getShots();
+            started = snapshot.isStarted();
+            ended = snapshot.isEnded();
+            canShoot = snapshot.canShoot();
+            snapshot.restoreShot(shot);
+        }
+        resets++;
+    }
+
+    /*
+     * The replay of the game so far, from when it was created. Can be called from any thread.
+     */
+    public Replay getReplay() {
+        return recorder.toReplay(world.getTick());
+    }
+
+    /*
+     * Sets the archive the position of every ball is written to after each step, null to stop archiving
+     */
+    public void setArchive(TrajectoryArchiveWriter archive) {
+        this.archive = archive;
+    }
+
+    public PhysicsWorld getWorld() {
+        return world;
+    }
+
+    public Rack getRack() {
+        return rack;
+    }
+
+    public int getCueBall() {
+        return cueBall;
+    }
+
+    public Shot getShot() {
+        return shot;
+    }
+
+    public int getTime() {
+        return time;
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+
+    public boolean isEnded() {
+        return ended;
+    }
+
+    public boolean canShoot() {
+        return canShoot;
+    }
+
+    public int getResets() {
+        return resets;
+    }
+
+    public int getShots() {
+        return shots;
+    }
+
+    public TableHistory getHistory() {
+        return history;
+    }
+
+    /*
+     * Changes whenever the balls are moved by a shot, a reset or an undo, used to tell when anything computed from the table is out of date
+     */
+    public long getVersion() {
+        return ((long) resets << 32) | shots;
+    }
+
+}
@@ -0,0 +1,135 @@
+package gaskell.sim;
+
+import java.util.Arrays;
+
+/*
+ * @author Connor Gaskell
+ * @description The starting layout of the balls on the table, the position, number and kind of each ball.
+ *              The standard rack is the triangle of fifteen balls used by the game, followed by the white ball.
+ *              Balls are added to a PhysicsWorld in rack order, so ball i of the rack has the id i in the world.
+ */
+
+public class Rack {
+
+    /*
+     * Position, number and kind of each ball in the rack
+     */
+    private final float[] x, z;
+    private final int[] number, kind;
+
+    // Index of the white ball in the rack
+    private final int cueBall;
+
+    /*
+     * Constructor passes the position, number and kind of each ball, and the index of the white ball
+     */
+    public Rack(float[] x, float[] z, int[] number, int[] kind, int cueBall) {
+        this.x = x;
+        this.z = z;
+        this.number = number;
+        this.kind = kind;
+        this.cueBall = cueBall;
+    }
+
+    /*
+     * The standard rack, five rows of balls starting at X 1.0 with the rows 1.75 radius apart, and the white ball at X -2.0.
+     * The numbers match the textures, 1 to 7 are solids, 8 is the black and 9 to 15 are stripes.
+     */
+    public static Rack standard(TableGeometry table) {
+        float ballScale = table.ballRadius;
+
+        /*
+         * Offset of each ball from the centre line in ball radii, row by row, in the order the balls are numbered
+         */
+        float[][] rows = {
+                {0},
+                {1, -1},
+                {2, 0, -2},
+                {1, -1, 3, -3},
+                {2, -2, 0, 4, -4}
+        };
+
+        float[] x = new float[16], z = new float[16];
+        int[] number = new int[16], kind = new int[16];
+
+        int i = 0;
+        float ballX = 1.0f;
+        for(float[] row : rows) {
+            ballX = ballX + (ballScale * 1.75f);
+            for(float offset : row) {
+                x[i] = ballX;
+                z[i] = offset * ballScale;
+                number[i] = i + 1;
+                kind[i] = number[i] == 8 ? BallStateStore.KIND_BLACK : number[i] < 8 ? BallStateStore.KIND_SOLID : BallStateStore.KIND_STRIPE;
+                i++;
+            }
+        }
+
+        /*
+         * White Ball
+         */
+        x[i] = -2.0f;
+        z[i] = 0.0f;
+        number[i] = 0;
+        kind[i] = BallStateStore.KIND_CUE;
+
+        return new Rack(x, z, number, kind, i);
+    }
+
+    /*
+     * Adds every ball in the rack to the world, in rack order. Returns the id of the white ball in the world.
+     */
+    public int addTo(PhysicsWorld world) {
+        int cueId = -1;
+        for(int i = 0; i < size(); i++) {
+            int id = world.addBall(x[i], 0.0f, z[i], kind[i], number[i]);
+            if(i == cueBall) cueId = id;
+        }
+        return cueId;
+    }
+
+    /*
+     * Converts a ball kind to the type name used by the scene, the reverse of BallStateStore.kindOf()
+     */
+    public static String typeOf(int kind) {
+        switch(kind) {
+            case BallStateStore.KIND_CUE: return "WHITE";
+            case BallStateStore.KIND_STRIPE: return "STRIPE";
+            case BallStateStore.KIND_BLACK: return "BLACK";
+            default: return "SOLID";
+        }
+    }
+
+    /*
+     * Returns true if the passed rack places the same balls in the same positions
+     */
+    public boolean matches(Rack other) {
+        return cueBall == other.cueBall && Arrays.equals(x, other.x) && Arrays.equals(z, other.z)
+                && Arrays.equals(number, other.number) && Arrays.equals(kind, other.kind);
+    }
+
+    public int size() {
+        return x.length;
+    }
+
+    public float getX(int i) {
+        return x[i];
+    }
+
+    public float getZ(int i) {
+        return z[i];
+    }
+
+    public int getNumber(int i) {
+        return number[i];
+    }
+
+    public int getKind(int i) {
+        return kind[i];
+    }
+
+    public int getCueBall() {
+        return cueBall;
+    }
+
+}
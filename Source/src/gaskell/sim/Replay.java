@@ -0,0 +1,235 @@
+package gaskell.sim;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/*
+ * @author Connor Gaskell
+ * @description The inputs of a game of pool, enough to play it again exactly: the rack the balls started in, and each shot
+ *              (the power of the white ball and the tick it was hit on), each reset and each shot taken back (undo) in the order they happened.
+ *              The simulation is deterministic, so stepping a new game and applying the inputs on the same ticks gives the same game (see ReplayPlayer).
+ *              Nothing about the balls' movement is stored, so a game of forty shots is a few hundred bytes.
+ *              Binary format, all numbers big endian:
+ *                  "GPR" and a version byte
+ *                  a byte which is 0 for the standard rack, or 1 followed by the ball count, the white ball and then the x, z (floats),
+ *                  number and kind (bytes) of each ball
+ *                  the event count, then for each event the ticks since the last event, its type and for a shot the power on each axis (floats)
+ *                  the ticks from the last event to the end of the game
+ *              Counts and tick gaps are written as variable length integers, 7 bits per byte.
+ */
+
+public class Replay {
+
+    // Types of event
+    public static final byte SHOT = 0, RESET = 1, UNDO = 2;
+
+    // File header and format version, version 1 replays have no undo events and are read the same way
+    private static final byte[] MAGIC = {'G', 'P', 'R'};
+    private static final byte VERSION = 2;
+
+    // The rack the game started with
+    private final Rack rack;
+
+    /*
+     * The events in the order they happened, the tick each happened on, its type and the power of each shot
+     */
+    private final long[] tick;
+    private final byte[] type;
+    private final float[] powerX, powerZ;
+
+    // Tick the recording ended on
+    private final long endTick;
+
+    /*
+     * Constructor passes the rack, the events (only the first count of each array are used) and the last tick
+     */
+    public Replay(Rack rack, long[] tick, byte[] type, float[] powerX, float[] powerZ, int count, long endTick) {
+        this.rack = rack;
+        this.tick = Arrays.copyOf(tick, count);
+        this.type = Arrays.copyOf(type, count);
+        this.powerX = Arrays.copyOf(powerX, count);
+        this.powerZ = Arrays.copyOf(powerZ, count);
+        this.endTick = endTick;
+    }
+
+    /*
+     * Writes the replay to the stream
+     */
+    public void write(OutputStream stream, TableGeometry table) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+
+        /*
+         * The standard rack is a single byte, any other rack is written out in full
+         */
+        if(rack.matches(Rack.standard(table))) {
+            out.writeByte(0);
+        } else {
+            out.writeByte(1);
+            writeVarInt(out, rack.size());
+            writeVarInt(out, rack.getCueBall());
+            for(int i = 0; i < rack.size(); i++) {
+                out.writeFloat(rack.getX(i));
+                out.writeFloat(rack.getZ(i));
+                out.writeByte(rack.getNumber(i));
+                out.writeByte(rack.getKind(i));
+            }
+        }
+
+        writeVarInt(out, tick.length);
+        long last = 0;
+        for(int e = 0; e < tick.length; e++) {
+            writeVarLong(out, tick[e] - last);
+            out.writeByte(type[e]);
+            if(type[e] == SHOT) {
+                out.writeFloat(powerX[e]);
+                out.writeFloat(powerZ[e]);
+            }
+            last = tick[e];
+        }
+        writeVarLong(out, endTick - last);
+        out.flush();
+    }
+
+    /*
+     * Reads a replay written by write(), the table must be the one it was recorded on
+     */
+    public static Replay read(InputStream stream, TableGeometry table) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if(!Arrays.equals(magic, MAGIC)) throw new IOException("Not a replay");
+        int version = in.readByte();
+        if(version < 1 || version > VERSION) throw new IOException("Unsupported replay version " + version);
+
+        Rack rack;
+        if(in.readByte() == 0) {
+            rack = Rack.standard(table);
+        } else {
+            int size = readVarInt(in);
+            int cueBall = readVarInt(in);
+            float[] x = new float[size], z = new float[size];
+            int[] number = new int[size], kind = new int[size];
+            for(int i = 0; i < size; i++) {
+                x[i] = in.readFloat();
+                z[i] = in.readFloat();
+                number[i] = in.readByte();
+                kind[i] = in.readByte();
+            }
+            rack = new Rack(x, z, number, kind, cueBall);
+        }
+
+        int count = readVarInt(in);
+        long[] tick = new long[count];
+        byte[] type = new byte[count];
+        float[] powerX = new float[count], powerZ = new float[count];
+        long last = 0;
+        for(int e = 0; e < count; e++) {
+            tick[e] = last + readVarLong(in);
+            type[e] = in.readByte();
+            if(type[e] == SHOT) {
+                powerX[e] = in.readFloat();
+                powerZ[e] = in.readFloat();
+            } else if(type[e] != RESET && type[e] != UNDO) {
+                throw new IOException("Unknown event type " + type[e]);
+            }
+            last = tick[e];
+        }
+        long endTick = last + readVarLong(in);
+
+        return new Replay(rack, tick, type, powerX, powerZ, count, endTick);
+    }
+
+    /*
+     * The replay as bytes
+     */
+    public byte[] toBytes(TableGeometry table) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try {
+            write(bytes, table);
+        } catch(IOException e) {
+            // A ByteArrayOutputStream never throws
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static Replay fromBytes(byte[] bytes, TableGeometry table) throws IOException {
+        return read(new ByteArrayInputStream(bytes), table);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        writeVarLong(out, value);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        long value = readVarLong(in);
+        if(value < 0 || value > Integer.MAX_VALUE) throw new IOException("Count out of range " + value);
+        return (int) value;
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for(int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Variable length number too long");
+    }
+
+    public Rack getRack() {
+        return rack;
+    }
+
+    public int getEventCount() {
+        return tick.length;
+    }
+
+    public long getTick(int event) {
+        return tick[event];
+    }
+
+    public byte getType(int event) {
+        return type[event];
+    }
+
+    public float getPowerX(int event) {
+        return powerX[event];
+    }
+
+    public float getPowerZ(int event) {
+        return powerZ[event];
+    }
+
+    /*
+     * Number of shots in the replay
+     */
+    public int getShotCount() {
+        int shots = 0;
+        for(byte t : type) {
+            if(t == SHOT) shots++;
+        }
+        return shots;
+    }
+
+    public long getEndTick() {
+        return endTick;
+    }
+
+}
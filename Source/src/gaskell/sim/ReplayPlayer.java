@@ -0,0 +1,144 @@
+package gaskell.sim;
+
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * @author Connor Gaskell
+ * @description Plays a Replay by simulating a new game from its rack and applying each shot, reset and undo on the tick it was recorded on.
+ *              An undo takes back the game's own last shot, which was saved the same way it was in the recorded game.
+ *              The game can be played at any speed, in real time, faster than real time or as fast as it can be stepped,
+ *              and can jump straight to any shot by stepping to it without waiting.
+ *              Ticks where every ball is asleep cost next to nothing, so the time spent aiming adds little to a replay.
+ *              The game timer is ticked every TICKS_PER_SECOND steps, so the time can differ slightly from the recorded game's clock,
+ *              which ran on real time, but the balls are always the same.
+ */
+
+public class ReplayPlayer {
+
+    // The replay being played
+    private final Replay replay;
+
+    // The game the replay is simulated on
+    private final PoolGame game;
+
+    // Index of the next event to apply and number of shots taken so far
+    private int nextEvent = 0, shotsPlayed = 0;
+
+    /*
+     * Constructor passes the replay and the table it was recorded on
+     */
+    public ReplayPlayer(Replay replay, TableGeometry table) {
+        this.replay = replay;
+        this.game = new PoolGame(table, replay.getRack());
+    }
+
+    /*
+     * Applies the events of the current tick and steps the game once
+     */
+    public void step() {
+        long tick = game.getWorld().getTick();
+
+        while(nextEvent < replay.getEventCount() && replay.getTick(nextEvent) <= tick) {
+            applyEvent(nextEvent++);
+        }
+
+        game.step();
+        if((tick + 1) % PoolGame.TICKS_PER_SECOND == 0) game.tickSecond();
+    }
+
+    /*
+     * Takes a recorded shot, resets the game or takes the last shot back.
+     * A shot the game will not take, or an undo with no shot to take back, means the replay does not match this simulation.
+     */
+    private void applyEvent(int e) {
+        if(replay.getType(e) == Replay.RESET) {
+            game.reset();
+            return;
+        }
+
+        if(replay.getType(e) == Replay.UNDO) {
+            if(!game.undo()) throw new IllegalStateException("Replay undo on tick " + replay.getTick(e) + " had no shot to take back");
+            return;
+        }
+
+        game.getShot().setPower(replay.getPowerX(e), replay.getPowerZ(e));
+        if(!game.shoot()) throw new IllegalStateException("Replay shot " + shotsPlayed + " could not be taken on tick " + replay.getTick(e));
+        shotsPlayed++;
+    }
+
+    /*
+     * Steps until the game reaches the passed tick, or the end of the replay
+     */
+    public void advanceTo(long tick) {
+        long end = Math.min(tick, replay.getEndTick());
+        while(game.getWorld().getTick() < end) {
+            step();
+        }
+    }
+
+    /*
+     * Steps straight to the tick the passed shot (counting from 0) is taken on, leaving the game just before it is hit.
+     * Past the last shot this plays to the end.
+     */
+    public void seekToShot(int shot) {
+        int shots = 0;
+        for(int e = 0; e < replay.getEventCount(); e++) {
+            if(replay.getType(e) != Replay.SHOT) continue;
+            if(shots++ == shot) {
+                if(e < nextEvent) throw new IllegalStateException("Shot " + shot + " has already been played, use a new player to go back");
+                advanceTo(replay.getTick(e));
+                return;
+            }
+        }
+        playToEnd();
+    }
+
+    /*
+     * Steps as fast as possible to the end of the replay
+     */
+    public void playToEnd() {
+        advanceTo(replay.getEndTick());
+    }
+
+    /*
+     * Plays to the end of the replay at the passed multiple of real time, e.g. 1 plays at TICKS_PER_SECOND ticks a second and 4 at
+     * four times that. A speed of 0 or less plays as fast as possible.
+     */
+    public void play(double speed) {
+        if(speed <= 0) {
+            playToEnd();
+            return;
+        }
+
+        long tickNanos = (long) (1e9 / (PoolGame.TICKS_PER_SECOND * speed));
+        long next = System.nanoTime();
+        while(!isFinished()) {
+            step();
+
+            // Wait for the time of the next tick, without drifting if a step ran long
+            next += tickNanos;
+            long wait = next - System.nanoTime();
+            if(wait > 0) LockSupport.parkNanos(wait);
+        }
+    }
+
+    /*
+     * Returns true once the game has reached the end of the replay
+     */
+    public boolean isFinished() {
+        return game.getWorld().getTick() >= replay.getEndTick();
+    }
+
+    public PoolGame getGame() {
+        return game;
+    }
+
+    public Replay getReplay() {
+        return replay;
+    }
+
+    public int getShotsPlayed() {
+        return shotsPlayed;
+    }
+
+}
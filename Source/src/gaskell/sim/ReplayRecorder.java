@@ -0,0 +1,81 @@
+package gaskell.sim;
+
+import java.util.Arrays;
+
+/*
+ * @author Connor Gaskell
+ * @description Records the inputs of a PoolGame as it is played (shots, resets and undos), each PoolGame has its own recorder (see PoolGame.getReplay()).
+ *              Shots are recorded on the tick they are taken, resets on the tick the world applies them, so a reset pressed on the
+ *              keyboard part way through a step is recorded on the step which actually moved the balls back.
+ *              Events are appended to growing arrays, which only allocate when they double in size.
+ *              Recording happens on the thread which steps the game, getReplay() can be called from any thread.
+ */
+
+public class ReplayRecorder {
+
+    // The rack the game started with
+    private final Rack rack;
+
+    /*
+     * The events so far, see Replay
+     */
+    private long[] tick = new long[32];
+    private byte[] type = new byte[32];
+    private float[] powerX = new float[32], powerZ = new float[32];
+    private int count = 0;
+
+    /*
+     * Constructor passes the rack the game started with
+     */
+    public ReplayRecorder(Rack rack) {
+        this.rack = rack;
+    }
+
+    /*
+     * Records a shot taken with the passed power, before the step of the passed tick
+     */
+    public synchronized void shot(long shotTick, float shotPowerX, float shotPowerZ) {
+        int e = add(shotTick, Replay.SHOT);
+        powerX[e] = shotPowerX;
+        powerZ[e] = shotPowerZ;
+    }
+
+    /*
+     * Records a reset applied by the step of the passed tick
+     */
+    public synchronized void reset(long resetTick) {
+        add(resetTick, Replay.RESET);
+    }
+
+    /*
+     * Records a shot taken back on the passed tick
+     */
+    public synchronized void undo(long undoTick) {
+        add(undoTick, Replay.UNDO);
+    }
+
+    private int add(long eventTick, byte eventType) {
+        if(count == tick.length) {
+            tick = Arrays.copyOf(tick, count * 2);
+            type = Arrays.copyOf(type, count * 2);
+            powerX = Arrays.copyOf(powerX, count * 2);
+            powerZ = Arrays.copyOf(powerZ, count * 2);
+        }
+
+        tick[count] = eventTick;
+        type[count] = eventType;
+        return count++;
+    }
+
+    /*
+     * The replay of everything recorded so far, ending on the passed tick
+     */
+    public synchronized Replay toReplay(long endTick) {
+        return new Replay(rack, tick, type, powerX, powerZ, count, endTick);
+    }
+
+    public synchronized int getEventCount() {
+        return count;
+    }
+
+}
@@ -0,0 +1,58 @@
+package gaskell.sim;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/*
+ * @author Connor Gaskell
+ * @description Plays a saved replay without a display and prints the outcome, or the table just before a chosen shot.
+ *              Run with: java -cp out gaskell.sim.ReplayTool <file> [speed] [shot]
+ *              A speed of 0 (the default) plays as fast as possible, 1 plays in real time.
+ */
+
+public class ReplayTool {
+
+    public static void main(String[] args) throws IOException {
+        if(args.length == 0) {
+            System.out.println("Usage: ReplayTool <file> [speed] [shot]");
+            return;
+        }
+
+        double speed = args.length > 1 ? Double.parseDouble(args[1]) : 0;
+        int shot = args.length > 2 ? Integer.parseInt(args[2]) : -1;
+
+        TableGeometry table = TableGeometry.standard();
+        Replay replay;
+        try(InputStream in = Files.newInputStream(Paths.get(args[0]))) {
+            replay = Replay.read(in, table);
+        }
+        System.out.println("Replay of " + replay.getShotCount() + " shots over " + replay.getEndTick() + " ticks, " + Files.size(Paths.get(args[0])) + " bytes");
+
+        ReplayPlayer player = new ReplayPlayer(replay, table);
+        long start = System.nanoTime();
+
+        /*
+         * Either jump to the chosen shot and print each ball, or play the whole game
+         */
+        if(shot >= 0) {
+            player.seekToShot(shot);
+            BallStateStore balls = player.getGame().getWorld().getBalls();
+            System.out.println("Before shot " + shot + " (tick " + player.getGame().getWorld().getTick() + "):");
+            for(int i = 0; i < balls.size(); i++) {
+                String state = balls.isPocketed(i) ? "pocketed" : String.format("%.4f, %.4f", balls.posX[i], balls.posZ[i]);
+                System.out.println("  Ball " + balls.number[i] + ": " + state);
+            }
+        } else {
+            player.play(speed);
+            PoolGame game = player.getGame();
+            System.out.println((game.isEnded() ? "All balls pocketed" : "Ended") + " after " + player.getShotsPlayed() + " shots, pocketed "
+                    + game.getWorld().getPocketedCount() + ", game time " + game.getTime() + "s");
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println("Simulated " + player.getGame().getWorld().getTick() + " ticks in " + String.format("%.3f", seconds) + "s");
+    }
+
+}
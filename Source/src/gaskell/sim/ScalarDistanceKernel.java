@@ -0,0 +1,40 @@
+package gaskell.sim;
+
+/*
+ * @author Connor Gaskell
+ * @description DistanceKernel which tests the balls one at a time, used when the Vector API is not available.
+ */
+
+public class ScalarDistanceKernel implements DistanceKernel {
+
+    // The kernel holds no state, so a single instance is shared
+    public static final ScalarDistanceKernel INSTANCE = new ScalarDistanceKernel();
+
+    @Override
+    public long overlapMask(float x, float y, float z, float[] posX, float[] posY, float[] posZ, int from, int count, float distanceSquared) {
+        long mask = 0;
+        for(int k = 0; k < count; k++) {
+            int j = from + k;
+            float dx = posX[j] - x, dy = posY[j] - y, dz = posZ[j] - z;
+            if(dx * dx + dy * dy + dz * dz < distanceSquared) mask |= 1L << k;
+        }
+        return mask;
+    }
+
+    @Override
+    public long overlapMask(float x, float y, float z, float[] posX, float[] posY, float[] posZ, int[] ids, int from, int count, float distanceSquared) {
+        long mask = 0;
+        for(int k = 0; k < count; k++) {
+            int j = ids[from + k];
+            float dx = posX[j] - x, dy = posY[j] - y, dz = posZ[j] - z;
+            if(dx * dx + dy * dy + dz * dz < distanceSquared) mask |= 1L << k;
+        }
+        return mask;
+    }
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+}
@@ -0,0 +1,81 @@
+package gaskell.sim;
+
+/*
+ * @author Connor Gaskell
+ * @description The shot input model. The player aims by pointing at the table, the white ball is hit away from the aim point
+ *              with a power proportional to the distance between the ball and the aim point, limited to MAX_POWER on each axis.
+ *              The Shot is reused, aim() is called every frame while the player is aiming so nothing is allocated.
+ */
+
+public class Shot {
+
+    // Distance between the white ball and the aim point is divided by this to give the power
+    public static final float POWER_SCALE = 20.0f;
+
+    // Maximum power the white ball can be struck at, on each axis
+    public static final float MAX_POWER = 0.1f;
+
+    /*
+     * The power of the shot on the X and Z axis, the velocity the white ball is given
+     */
+    private float powerX = 0.0f, powerZ = 0.0f;
+
+    /*
+     * The point on the table being aimed at
+     */
+    private float aimX = 0.0f, aimZ = 0.0f;
+
+    /*
+     * Sets the shot from the position of the white ball and the point on the table being aimed at
+     */
+    public void aim(float ballX, float ballZ, float aimX, float aimZ) {
+        this.aimX = aimX;
+        this.aimZ = aimZ;
+
+        // Limit the white ball power
+        powerX = clamp((ballX - aimX) / POWER_SCALE);
+        powerZ = clamp((ballZ - aimZ) / POWER_SCALE);
+    }
+
+    /*
+     * Sets the power of the shot directly, e.g. for shots which are not aimed with the mouse. The power is still limited.
+     */
+    public void setPower(float powerX, float powerZ) {
+        this.powerX = clamp(powerX);
+        this.powerZ = clamp(powerZ);
+    }
+
+    /*
+     * Sets the power and aim point exactly as they were, used to restore a TableSnapshot
+     */
+    void restore(float powerX, float powerZ, float aimX, float aimZ) {
+        this.powerX = powerX;
+        this.powerZ = powerZ;
+        this.aimX = aimX;
+        this.aimZ = aimZ;
+    }
+
+    /*
+     * Limits a power to MAX_POWER using a conditional operator
+     */
+    public static float clamp(float power) {
+        return power >= MAX_POWER ? MAX_POWER : power <= -MAX_POWER ? -MAX_POWER : power;
+    }
+
+    public float getPowerX() {
+        return powerX;
+    }
+
+    public float getPowerZ() {
+        return powerZ;
+    }
+
+    public float getAimX() {
+        return aimX;
+    }
+
+    public float getAimZ() {
+        return aimZ;
+    }
+
+}
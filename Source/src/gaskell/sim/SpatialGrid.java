@@ -0,0 +1,193 @@
+package gaskell.sim;
+
+import java.util.Arrays;
+
+/*
+ * @author Connor Gaskell
+ * @description Uniform grid broadphase for ball to ball collisions.
+ *              The table is split into square cells at least as wide as the collision distance, each step the balls are bucketed into
+ *              their cell with a counting sort and only balls in the same or neighbouring cells are returned as candidate pairs.
+ *              The cost of finding pairs grows roughly linearly with the number of balls rather than with its square.
+ * References: Real-Time Collision Detection (Christer Ericson), chapter 7.1
+ */
+
+public class SpatialGrid {
+
+    // Width of each cell, must be at least the distance at which two balls can touch
+    private final float cellSize;
+
+    // The minimum X and Z covered by the grid
+    private final float minX, minZ;
+
+    // Number of cells on the X-Axis (columns) and Z-Axis (rows)
+    private final int columns, rows;
+
+    // Index into cellBalls of the first ball in each cell, the last entry marks the end of the final cell
+    private final int[] cellStart;
+
+    // Ball ids sorted by the cell they are in
+    private int[] cellBalls = new int[0];
+
+    // The cell each ball is in
+    private int[] ballCell = new int[0];
+
+    // Number of balls in the grid after the last build
+    private int ballCount = 0;
+
+    /*
+     * Candidate pairs found by the last call to findPairs()
+     */
+    private int[] pairA = new int[64], pairB = new int[64];
+
+    /*
+     * Constructor passes the half length and half width of the area to cover and the size of each cell.
+     * Balls outside of the area are clamped into the edge cells, so they are still tested against their neighbours.
+     */
+    public SpatialGrid(float halfLength, float halfWidth, float cellSize) {
+        this.cellSize = cellSize;
+        this.minX = -halfLength;
+        this.minZ = -halfWidth;
+        this.columns = Math.max(1, (int) Math.ceil((halfLength * 2) / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil((halfWidth * 2) / cellSize));
+        this.cellStart = new int[columns * rows + 1];
+    }
+
+    /*
+     * Creates a grid covering the table, with cells the width of a ball.
+     * A margin of one ball is added around the cushions for balls that are bouncing off them.
+     */
+    public static SpatialGrid forTable(TableGeometry table, float cellSize) {
+        return new SpatialGrid(table.halfLength + table.ballRadius * 2, table.halfWidth + table.ballRadius * 2, cellSize);
+    }
+
+    /*
+     * Buckets every active ball in the store into its cell, using a counting sort so nothing is allocated once the arrays are large enough.
+     * Balls which are not active (falling into or sitting in a pocket) are left out, so they never pair with the balls on the table.
+     */
+    public void build(BallStateStore balls) {
+        int count = balls.size();
+        if(ballCell.length < count) {
+            ballCell = new int[count * 2];
+            cellBalls = new int[count * 2];
+        }
+        ballCount = count;
+
+        // Count the balls in each cell, offset by one so the prefix sum gives the start of each cell
+        Arrays.fill(cellStart, 0);
+        for(int i = 0; i < count; i++) {
+            if(!balls.isActive(i)) {
+                ballCell[i] = -1;
+                continue;
+            }
+
+            int cell = cellOf(balls.posX[i], balls.posZ[i]);
+            ballCell[i] = cell;
+            cellStart[cell + 1]++;
+        }
+
+        // Prefix sum of the counts
+        for(int c = 1; c < cellStart.length; c++) {
+            cellStart[c] += cellStart[c - 1];
+        }
+
+        /*
+         * Place each ball into its cell, cellStart is moved forward as balls are placed and then shifted back afterwards
+         */
+        for(int i = 0; i < count; i++) {
+            if(ballCell[i] >= 0) cellBalls[cellStart[ballCell[i]]++] = i;
+        }
+        for(int c = cellStart.length - 1; c > 0; c--) {
+            cellStart[c] = cellStart[c - 1];
+        }
+        cellStart[0] = 0;
+    }
+
+    /*
+     * Finds every pair of balls in the same or neighbouring cells, each pair is only returned once.
+     * Only half of the neighbouring cells are visited from each cell (right, and the three cells below), the other half visit this cell.
+     * Returns the number of pairs, which can be read with getPairA() and getPairB().
+     */
+    public int findPairs() {
+        int pairCount = 0;
+
+        for(int cz = 0; cz < rows; cz++) {
+            for(int cx = 0; cx < columns; cx++) {
+                int cell = cz * columns + cx;
+                int start = cellStart[cell], end = cellStart[cell + 1];
+
+                for(int k = start; k < end; k++) {
+                    int a = cellBalls[k];
+
+                    // Balls later in the same cell
+                    for(int m = k + 1; m < end; m++) {
+                        pairCount = addPair(pairCount, a, cellBalls[m]);
+                    }
+
+                    // Balls in the forward neighbouring cells
+                    pairCount = addCell(pairCount, a, cx + 1, cz);
+                    pairCount = addCell(pairCount, a, cx - 1, cz + 1);
+                    pairCount = addCell(pairCount, a, cx, cz + 1);
+                    pairCount = addCell(pairCount, a, cx + 1, cz + 1);
+                }
+            }
+        }
+
+        return pairCount;
+    }
+
+    /*
+     * Pairs the ball with every ball in the passed cell, if the cell is on the grid
+     */
+    private int addCell(int pairCount, int a, int cx, int cz) {
+        if(cx < 0 || cx >= columns || cz >= rows) return pairCount;
+
+        int cell = cz * columns + cx;
+        for(int m = cellStart[cell]; m < cellStart[cell + 1]; m++) {
+            pairCount = addPair(pairCount, a, cellBalls[m]);
+        }
+        return pairCount;
+    }
+
+    /*
+     * Stores a pair, growing the pair arrays when they are full
+     */
+    private int addPair(int pairCount, int a, int b) {
+        if(pairCount == pairA.length) {
+            pairA = Arrays.copyOf(pairA, pairCount * 2);
+            pairB = Arrays.copyOf(pairB, pairCount * 2);
+        }
+
+        // Store the lowest id first, so pairs are always resolved in the same order
+        pairA[pairCount] = Math.min(a, b);
+        pairB[pairCount] = Math.max(a, b);
+        return pairCount + 1;
+    }
+
+    /*
+     * Returns the index of the cell containing the passed position, clamped onto the grid
+     */
+    public int cellOf(float x, float z) {
+        int cx = (int) ((x - minX) / cellSize);
+        int cz = (int) ((z - minZ) / cellSize);
+        cx = cx < 0 ? 0 : cx >= columns ? columns - 1 : cx;
+        cz = cz < 0 ? 0 : cz >= rows ? rows - 1 : cz;
+        return cz * columns + cx;
+    }
+
+    public int[] getPairA() {
+        return pairA;
+    }
+
+    public int[] getPairB() {
+        return pairB;
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    public int getBallCount() {
+        return ballCount;
+    }
+
+}
@@ -0,0 +1,249 @@
+package gaskell.sim;
+
+/*
+ * @author Connor Gaskell
+ * @description Precomputed 2D distance field over the playing surface, for the centre of a ball.
+ *              Each node of the grid stores the signed distance to the nearest cushion (positive on the table, negative past the cushion),
+ *              the normal of that cushion (pointing back onto the table) and the pocket whose capture zone is nearest, or -1 if there is none.
+ *              The playing area is the cushion box joined with the capture zone of each pocket, so the cushions are open at the pockets.
+ *              The corners where a cushion meets a pocket (the jaws) are rounded off with a smooth union of the two shapes.
+ *              Any number of pockets (up to Short.MAX_VALUE, the pocket of each node is stored as a short) or cushion shapes are looked up
+ *              at the same cost, one grid cell per ball, instead of a loop over the pockets.
+ *              The field never changes once built, so one field is shared by every world on the same table (see TableGeometry.getDistanceField()).
+ * References: https://iquilezles.org/articles/distfunctions2d/
+ *             https://iquilezles.org/articles/smin/
+ */
+
+public class TableDistanceField {
+
+    // Default spacing of the grid nodes
+    public static final float DEFAULT_CELL_SIZE = 0.02f;
+
+    // Default radius the jaws of the pockets are rounded to
+    public static final float DEFAULT_JAW_RADIUS = 0.05f;
+
+    // Smallest distance a sphere trace steps, so a ball running along a cushion can not stall the trace
+    private static final float MIN_TRACE_STEP = 0.001f;
+
+    // Most samples taken by a sphere trace
+    private static final int MAX_TRACE_STEPS = 64;
+
+    // The table the field is for
+    private final TableGeometry table;
+
+    // Radius of the rounded jaws
+    private final float jawRadius;
+
+    /*
+     * Position of the first node and the spacing of the grid
+     */
+    private final float minX, minZ, cellSize, inverseCellSize;
+    private final int columns, rows;
+
+    /*
+     * Per node values, indexed by row * columns + column
+     */
+    private final float[] distance, normalX, normalZ;
+    private final short[] pocket;
+
+    /*
+     * Constructor passes the table, the spacing of the grid and the radius of the jaws
+     */
+    public TableDistanceField(TableGeometry table, float cellSize, float jawRadius) {
+        if(table.getPocketCount() > Short.MAX_VALUE) throw new IllegalArgumentException("Too many pockets: " + table.getPocketCount());
+
+        this.table = table;
+        this.jawRadius = jawRadius;
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1.0f / cellSize;
+
+        /*
+         * Cover the cushion box and every pocket's capture zone, with a ball's width spare on each side
+         */
+        float extentX = table.halfLength, extentZ = table.halfWidth;
+        for(int p = 0; p < table.getPocketCount(); p++) {
+            extentX = Math.max(extentX, Math.abs(table.pocketX[p]) + table.pocketRadius);
+            extentZ = Math.max(extentZ, Math.abs(table.pocketZ[p]) + table.pocketRadius);
+        }
+        extentX += table.ballRadius * 2;
+        extentZ += table.ballRadius * 2;
+
+        this.minX = -extentX;
+        this.minZ = -extentZ;
+        this.columns = (int) Math.ceil(extentX * 2 / cellSize) + 1;
+        this.rows = (int) Math.ceil(extentZ * 2 / cellSize) + 1;
+
+        int nodes = columns * rows;
+        distance = new float[nodes];
+        normalX = new float[nodes];
+        normalZ = new float[nodes];
+        pocket = new short[nodes];
+
+        build();
+    }
+
+    /*
+     * Field for the passed table with the default grid spacing and jaw radius
+     */
+    public TableDistanceField(TableGeometry table) {
+        this(table, DEFAULT_CELL_SIZE, DEFAULT_JAW_RADIUS);
+    }
+
+    /*
+     * Evaluates the exact field at every node, the normals are found from the change in distance either side of the node
+     */
+    private void build() {
+        float h = cellSize * 0.5f;
+
+        // Farthest a node can be from a point in one of its cells, a pocket within this of the node can capture a ball in the cell
+        float reach = table.pocketRadius + cellSize * 1.5f;
+
+        for(int row = 0; row < rows; row++) {
+            for(int column = 0; column < columns; column++) {
+                int node = row * columns + column;
+                float x = minX + column * cellSize, z = minZ + row * cellSize;
+
+                distance[node] = exactDistance(x, z);
+
+                float gradientX = exactDistance(x + h, z) - exactDistance(x - h, z);
+                float gradientZ = exactDistance(x, z + h) - exactDistance(x, z - h);
+                float length = (float) Math.sqrt(gradientX * gradientX + gradientZ * gradientZ);
+                if(length > 0) {
+                    normalX[node] = gradientX / length;
+                    normalZ[node] = gradientZ / length;
+                }
+
+                /*
+                 * The nearest pocket, if it is close enough to capture a ball in one of the node's cells
+                 */
+                int nearest = -1;
+                float nearestDistance = reach * reach;
+                for(int p = 0; p < table.getPocketCount(); p++) {
+                    float xDiff = table.pocketX[p] - x, zDiff = table.pocketZ[p] - z;
+                    float d = xDiff * xDiff + zDiff * zDiff;
+                    if(d < nearestDistance) {
+                        nearestDistance = d;
+                        nearest = p;
+                    }
+                }
+                pocket[node] = (short) nearest;
+            }
+        }
+    }
+
+    /*
+     * Signed distance from the point to the edge of the playing area, the cushion box joined smoothly with the pocket capture zones
+     */
+    private float exactDistance(float x, float z) {
+        // Distance inside the cushion box, negative outside it
+        float qx = Math.abs(x) - table.halfLength, qz = Math.abs(z) - table.halfWidth;
+        float outside = (float) Math.sqrt(Math.max(qx, 0) * Math.max(qx, 0) + Math.max(qz, 0) * Math.max(qz, 0));
+        float field = -(outside + Math.min(Math.max(qx, qz), 0));
+
+        for(int p = 0; p < table.getPocketCount(); p++) {
+            float xDiff = x - table.pocketX[p], zDiff = z - table.pocketZ[p];
+            float pocketField = table.pocketRadius - (float) Math.sqrt(xDiff * xDiff + zDiff * zDiff);
+            field = smoothMax(field, pocketField, jawRadius);
+        }
+        return field;
+    }
+
+    /*
+     * Polynomial smooth maximum, equal to the maximum when the values differ by more than k, otherwise rounded off
+     */
+    private static float smoothMax(float a, float b, float k) {
+        if(k <= 0) return Math.max(a, b);
+        float h = Math.max(k - Math.abs(a - b), 0) / k;
+        return Math.max(a, b) + h * h * k * 0.25f;
+    }
+
+    /*
+     * Index of the node nearest to the point, points off the grid use the nearest node on its edge
+     */
+    public int nodeAt(float x, float z) {
+        int column = Math.round((x - minX) * inverseCellSize);
+        int row = Math.round((z - minZ) * inverseCellSize);
+        column = column < 0 ? 0 : column >= columns ? columns - 1 : column;
+        row = row < 0 ? 0 : row >= rows ? rows - 1 : row;
+        return row * columns + column;
+    }
+
+    /*
+     * Distance from the point to the nearest cushion, interpolated between the four surrounding nodes.
+     * Positive on the table and in the pocket mouths, negative past a cushion.
+     */
+    public float distance(float x, float z) {
+        float gx = (x - minX) * inverseCellSize, gz = (z - minZ) * inverseCellSize;
+        int column = (int) Math.floor(gx), row = (int) Math.floor(gz);
+        column = column < 0 ? 0 : column >= columns - 1 ? columns - 2 : column;
+        row = row < 0 ? 0 : row >= rows - 1 ? rows - 2 : row;
+        float fx = gx - column, fz = gz - row;
+
+        int node = row * columns + column;
+        float top = distance[node] + (distance[node + 1] - distance[node]) * fx;
+        float bottom = distance[node + columns] + (distance[node + columns + 1] - distance[node + columns]) * fx;
+        return top + (bottom - top) * fz;
+    }
+
+    /*
+     * Normal of the nearest cushion at the node, pointing back onto the table
+     */
+    public float getNormalX(int node) {
+        return normalX[node];
+    }
+
+    public float getNormalZ(int node) {
+        return normalZ[node];
+    }
+
+    /*
+     * The pocket nearest to the node which could capture a ball close to it, -1 if there is none.
+     * The capture itself still has to be checked against that pocket, the node only narrows it down to one.
+     */
+    public int getPocket(int node) {
+        return pocket[node];
+    }
+
+    /*
+     * Sphere traces a ball from the point along the passed movement, returning the fraction of the movement at which it reaches
+     * a cushion, or a value above 1 if it does not. Each step moves on by the distance to the nearest cushion, which the ball
+     * can not pass within that step. Cushions the ball is already past but moving away from are ignored.
+     */
+    public float timeOfImpact(float x, float z, float moveX, float moveZ) {
+        float length = (float) Math.sqrt(moveX * moveX + moveZ * moveZ);
+        if(length == 0) return 2.0f;
+
+        float t = 0, lastT = 0, lastD = -1;
+        for(int step = 0; step < MAX_TRACE_STEPS && t <= 1.0f; step++) {
+            float px = x + moveX * t, pz = z + moveZ * t;
+            float d = distance(px, pz);
+
+            if(d <= 0) {
+                // Only a hit if the ball is moving into the cushion
+                int node = nodeAt(px, pz);
+                if(moveX * normalX[node] + moveZ * normalZ[node] < 0) {
+                    // The last step may have passed the cushion, find where the distance crossed zero between the last two samples
+                    return lastD > 0 ? lastT + (t - lastT) * lastD / (lastD - d) : t;
+                }
+            }
+
+            lastT = t;
+            lastD = d;
+            t += Math.max(Math.abs(d), MIN_TRACE_STEP) / length;
+        }
+        return 2.0f;
+    }
+
+    public TableGeometry getTable() {
+        return table;
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    public float getJawRadius() {
+        return jawRadius;
+    }
+
+}
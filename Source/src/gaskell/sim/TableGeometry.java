@@ -0,0 +1,68 @@
+package gaskell.sim;
+
+/*
+ * @author Connor Gaskell
+ * @description Describes the playing surface of the pool table, the cushion limits for the centre of a ball and the pocket positions.
+ *              The values match the table model loaded in Game, they were previously hardcoded within BallCollision and Game.createScene().
+ */
+
+public class TableGeometry {
+
+    // Half the length (X-Axis) and half the width (Z-Axis) the centre of a ball can travel before hitting a cushion
+    public final float halfLength, halfWidth;
+
+    // Radius of each pool ball
+    public final float ballRadius;
+
+    // Distance from the centre of a pocket which will capture a ball
+    public final float pocketRadius;
+
+    // X and Z positions of each of the pockets
+    public final float[] pocketX, pocketZ;
+
+    // Distance field of the cushions and pockets, built the first time it is needed
+    private volatile TableDistanceField distanceField;
+
+    /*
+     * Constructor passes the cushion limits, ball radius, pocket capture radius and the pocket positions
+     */
+    public TableGeometry(float halfLength, float halfWidth, float ballRadius, float pocketRadius, float[] pocketX, float[] pocketZ) {
+        this.halfLength = halfLength;
+        this.halfWidth = halfWidth;
+        this.ballRadius = ballRadius;
+        this.pocketRadius = pocketRadius;
+        this.pocketX = pocketX;
+        this.pocketZ = pocketZ;
+    }
+
+    /*
+     * Returns the number of pockets on the table
+     */
+    public int getPocketCount() {
+        return pocketX.length;
+    }
+
+    /*
+     * Returns the distance field of the table, building it on the first call. The field is shared by every world on this table.
+     */
+    public TableDistanceField getDistanceField() {
+        TableDistanceField field = distanceField;
+        if(field == null) {
+            synchronized(this) {
+                field = distanceField;
+                if(field == null) distanceField = field = new TableDistanceField(this);
+            }
+        }
+        return field;
+    }
+
+    /*
+     * Creates the standard table used by the game, four corner pockets and two side pockets.
+     */
+    public static TableGeometry standard() {
+        return new TableGeometry(2.8f, 1.4f, 0.1f, 0.2f,
+                new float[] { 2.85f, 2.85f, -2.85f, -2.85f, 0.0f, 0.0f },
+                new float[] { 1.45f, -1.45f, -1.45f, 1.45f, 1.55f, -1.55f });
+    }
+
+}
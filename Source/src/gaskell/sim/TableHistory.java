@@ -0,0 +1,71 @@
+package gaskell.sim;
+
+/*
+ * @author Connor Gaskell
+ * @description A bounded ring of TableSnapshots of a PoolGame, for undo with more than one level.
+ *              Every snapshot is allocated up front, pushing saves into the next one and once the ring is full the oldest is overwritten,
+ *              so keeping a history costs nothing after the game is created.
+ */
+
+public class TableHistory {
+
+    // The snapshots, used as a ring
+    private final TableSnapshot[] snapshots;
+
+    // Index of the next snapshot to save into and the number of snapshots saved
+    private int next = 0, count = 0;
+
+    /*
+     * Constructor passes the number of snapshots kept and the number of balls in each
+     */
+    public TableHistory(int levels, int ballCount) {
+        snapshots = new TableSnapshot[Math.max(1, levels)];
+        for(int s = 0; s < snapshots.length; s++) {
+            snapshots[s] = new TableSnapshot(ballCount);
+        }
+    }
+
+    /*
+     * Saves the game into the next snapshot, overwriting the oldest if the ring is full
+     */
+    public void push(PoolGame game) {
+        game.save(snapshots[next]);
+        next = (next + 1) % snapshots.length;
+        if(count < snapshots.length) count++;
+    }
+
+    /*
+     * Removes and returns the latest snapshot, or null if there are none. The snapshot is reused by the next push,
+     * so it must be restored before anything else is pushed.
+     */
+    public TableSnapshot pop() {
+        if(count == 0) return null;
+        next = (next - 1 + snapshots.length) % snapshots.length;
+        count--;
+        return snapshots[next];
+    }
+
+    /*
+     * The latest snapshot without removing it, or null if there are none
+     */
+    public TableSnapshot peek() {
+        return count == 0 ? null : snapshots[(next - 1 + snapshots.length) % snapshots.length];
+    }
+
+    /*
+     * Forgets every snapshot
+     */
+    public void clear() {
+        next = 0;
+        count = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getLevels() {
+        return snapshots.length;
+    }
+
+}
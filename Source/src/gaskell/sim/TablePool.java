@@ -0,0 +1,154 @@
+package gaskell.sim;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * @author Connor Gaskell
+ * @description Holds many independent tables (each its own PoolGame) and advances them all at once on a fork/join pool.
+ *              The range of tables is split in half recursively until each task has a small batch, idle workers steal the other halves,
+ *              so the tables which take longest to come to rest are spread across the cores.
+ *              Each table only ever touches its own PoolGame and its own slot of the result arrays, so the results are collected without locks
+ *              and are visible to the caller once invoke() returns.
+ * References: A Java Fork/Join Framework (Doug Lea), http://gee.cs.oswego.edu/dl/papers/fj.pdf
+ */
+
+public class TablePool {
+
+    // Maximum number of ticks a table is stepped for in runToRest() by default
+    public static final int DEFAULT_MAX_TICKS = 100000;
+
+    // The tables
+    private final PoolGame[] games;
+
+    // The pool the tables are stepped on
+    private final ForkJoinPool forkJoinPool;
+
+    // Number of tables each task steps itself, rather than splitting further
+    private final int batchSize;
+
+    /*
+     * Results of the last runToRest(), one slot per table: the ticks taken and the number of balls pocketed by the end
+     */
+    private final int[] ticks, pocketed;
+
+    /*
+     * Constructor passes the number of tables, the table geometry and rack of every table, and the fork/join pool to use
+     */
+    public TablePool(int tableCount, TableGeometry table, Rack rack, ForkJoinPool forkJoinPool) {
+        this.games = new PoolGame[tableCount];
+        for(int i = 0; i < tableCount; i++) {
+            games[i] = new PoolGame(table, rack);
+        }
+        this.forkJoinPool = forkJoinPool;
+
+        // Aim for several batches per worker so there is something left to steal
+        this.batchSize = Math.max(1, tableCount / (forkJoinPool.getParallelism() * 8));
+
+        this.ticks = new int[tableCount];
+        this.pocketed = new int[tableCount];
+    }
+
+    /*
+     * Constructor passes the number of tables, each with the standard table and rack, stepped on the common pool
+     */
+    public TablePool(int tableCount) {
+        this(tableCount, TableGeometry.standard(), Rack.standard(TableGeometry.standard()), ForkJoinPool.commonPool());
+    }
+
+    /*
+     * Steps every table once
+     */
+    public void stepAll() {
+        forkJoinPool.invoke(new Batch(0, games.length, false, 0));
+    }
+
+    /*
+     * Steps every table until its balls have stopped, or the maximum number of ticks is reached.
+     * The ticks taken and balls pocketed by each table can then be read with getTicks() and getPocketed().
+     */
+    public void runToRest(int maxTicks) {
+        forkJoinPool.invoke(new Batch(0, games.length, true, maxTicks));
+    }
+
+    /*
+     * Takes the current shot on every table which can shoot, set with getGame(i).getShot()
+     */
+    public void shootAll() {
+        for(PoolGame game : games) {
+            game.shoot();
+        }
+    }
+
+    /*
+     * Steps a range of the tables, splitting it in half until it is small enough to step directly.
+     * Each table is stepped once, or stepped to rest for at most maxTicks if toRest is set.
+     */
+    private class Batch extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from, to, maxTicks;
+        private final boolean toRest;
+
+        Batch(int from, int to, boolean toRest, int maxTicks) {
+            this.from = from;
+            this.to = to;
+            this.toRest = toRest;
+            this.maxTicks = maxTicks;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from > batchSize) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Batch(from, middle, toRest, maxTicks), new Batch(middle, to, toRest, maxTicks));
+                return;
+            }
+
+            for(int i = from; i < to; i++) {
+                PoolGame game = games[i];
+                if(toRest) {
+                    ticks[i] = game.playShot(maxTicks);
+                } else {
+                    game.step();
+                    ticks[i] = 1;
+                }
+                pocketed[i] = game.getWorld().getPocketedCount();
+            }
+        }
+
+    }
+
+    public PoolGame getGame(int i) {
+        return games[i];
+    }
+
+    public int getTableCount() {
+        return games.length;
+    }
+
+    public int getTicks(int i) {
+        return ticks[i];
+    }
+
+    public int getPocketed(int i) {
+        return pocketed[i];
+    }
+
+    /*
+     * Total ticks taken by every table in the last run
+     */
+    public long getTotalTicks() {
+        long total = 0;
+        for(int t : ticks) {
+            total += t;
+        }
+        return total;
+    }
+
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+}
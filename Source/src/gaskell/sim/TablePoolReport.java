@@ -0,0 +1,77 @@
+package gaskell.sim;
+
+import java.util.concurrent.ForkJoinPool;
+
+/*
+ * @author Connor Gaskell
+ * @description Reports how many tables per second a TablePool simulates, from one worker up to every core.
+ *              Every table breaks the standard rack at a slightly different angle and is stepped to rest, the run is repeated
+ *              with a fresh pool for each number of workers so the speed up over a single worker can be compared.
+ *              Run with: java -cp out gaskell.sim.TablePoolReport [tables] [rounds]
+ */
+
+public class TablePoolReport {
+
+    // Default number of tables
+    private static final int DEFAULT_TABLES = 2000;
+
+    // Default number of timed rounds at each number of workers, the first round is a warm up and is not counted
+    private static final int DEFAULT_ROUNDS = 3;
+
+    public static void main(String[] args) {
+        int tables = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_TABLES;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ROUNDS;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.println("Tables: " + tables + ", cores: " + cores);
+
+        double single = 0;
+        int workers = 1;
+        while(true) {
+            double tablesPerSecond = measure(tables, rounds, workers);
+            if(workers == 1) single = tablesPerSecond;
+
+            System.out.println(String.format("%3d workers: %10.0f tables/s, speed up %.2fx", workers, tablesPerSecond, tablesPerSecond / single));
+
+            // Double the workers each time, always finishing with every core even when it is not a power of two
+            if(workers == cores) break;
+            workers = Math.min(workers * 2, cores);
+        }
+    }
+
+    /*
+     * Breaks and steps every table to rest on a pool with the passed number of workers, returning the best tables per second of the rounds
+     */
+    private static double measure(int tables, int rounds, int workers) {
+        ForkJoinPool forkJoinPool = new ForkJoinPool(workers);
+        TableGeometry table = TableGeometry.standard();
+        Rack rack = Rack.standard(table);
+
+        double best = 0;
+        try {
+            for(int round = 0; round <= rounds; round++) {
+                TablePool pool = new TablePool(tables, table, rack, forkJoinPool);
+
+                /*
+                 * Break every rack, with the angle spread a little across the tables
+                 */
+                for(int i = 0; i < tables; i++) {
+                    float angle = ((float) i / tables - 0.5f) * 0.02f;
+                    pool.getGame(i).getShot().setPower(Shot.MAX_POWER, angle);
+                }
+                pool.shootAll();
+
+                long start = System.nanoTime();
+                pool.runToRest(TablePool.DEFAULT_MAX_TICKS);
+                double seconds = (System.nanoTime() - start) / 1e9;
+
+                // The first round warms up the JIT
+                if(round > 0) best = Math.max(best, tables / seconds);
+            }
+        } finally {
+            forkJoinPool.shutdown();
+        }
+        return best;
+    }
+
+}
@@ -0,0 +1,190 @@
+package gaskell.sim;
+
+import java.util.Arrays;
+
+/*
+ * @author Connor Gaskell
+ * @description A copy of everything on the table which changes during a game, so the table can be put back exactly as it was,
+ *              e.g. to take a shot back or to try a shot another way and compare the outcomes.
+ *              The position, velocity and spin of every ball are stored in one preallocated flat float buffer, a column per axis one after
+ *              another, and the active, pocketed, moving and awake masks in one long buffer, so saving and restoring is a handful of
+ *              array copies and never allocates. The game state (timer, started, ended, whether the player can shoot, the shot count and
+ *              the shot being aimed) is stored alongside when the snapshot is of a PoolGame.
+ *              Only what changes is stored, the ball kinds, numbers, origins, masses and restitutions are left as they are,
+ *              so a snapshot can only be restored onto the world it was saved from (or a copy of it).
+ *              The world's tick is not restored, it keeps counting so a restore is an event in the history of the game and not a rewind of it.
+ */
+
+public class TableSnapshot {
+
+    // Floats stored for each ball, position, velocity and spin on each axis
+    private static final int COLUMNS = 9;
+
+    // Masks stored for each word of balls, active, pocketed, moving and awake
+    private static final int MASKS = 4;
+
+    // Floats stored after the ball columns, the power and aim point of the shot
+    private static final int SHOT_FLOATS = 4;
+
+    // Number of balls the buffers have room for, and the number of mask words for that many balls
+    private final int capacity, words;
+
+    /*
+     * The ball columns (posX, posY, posZ, velX, velY, velZ, spinX, spinY, spinZ, each capacity long) followed by the shot,
+     * and the masks (active, pocketed, moving and awake, each words long)
+     */
+    private final float[] floats;
+    private final long[] masks;
+
+    // Number of balls in the snapshot, -1 if nothing has been saved
+    private int ballCount = -1;
+
+    /*
+     * Game state, only set when the snapshot is of a PoolGame
+     */
+    private boolean hasGame = false;
+    private int time, shots;
+    private boolean started, ended, canShoot;
+
+    /*
+     * Constructor passes the number of balls the snapshot has room for
+     */
+    public TableSnapshot(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.words = (this.capacity + 63) >>> 6;
+        this.floats = new float[this.capacity * COLUMNS + SHOT_FLOATS];
+        this.masks = new long[words * MASKS];
+    }
+
+    /*
+     * Copies the balls into the snapshot
+     */
+    void saveBalls(BallStateStore balls) {
+        int n = balls.size();
+        if(n > capacity) throw new IllegalArgumentException("Snapshot has room for " + capacity + " balls, the table has " + n);
+
+        System.arraycopy(balls.posX, 0, floats, 0, n);
+        System.arraycopy(balls.posY, 0, floats, capacity, n);
+        System.arraycopy(balls.posZ, 0, floats, capacity * 2, n);
+        System.arraycopy(balls.velX, 0, floats, capacity * 3, n);
+        System.arraycopy(balls.velY, 0, floats, capacity * 4, n);
+        System.arraycopy(balls.velZ, 0, floats, capacity * 5, n);
+        System.arraycopy(balls.spinX, 0, floats, capacity * 6, n);
+        System.arraycopy(balls.spinY, 0, floats, capacity * 7, n);
+        System.arraycopy(balls.spinZ, 0, floats, capacity * 8, n);
+
+        int used = (n + 63) >>> 6;
+        System.arraycopy(balls.active, 0, masks, 0, used);
+        System.arraycopy(balls.pocketed, 0, masks, words, used);
+        System.arraycopy(balls.moving, 0, masks, words * 2, used);
+        System.arraycopy(balls.awake, 0, masks, words * 3, used);
+
+        ballCount = n;
+        hasGame = false;
+    }
+
+    /*
+     * Copies the balls in the snapshot back into the store, which must hold the same balls it was saved from
+     */
+    void restoreBalls(BallStateStore balls) {
+        if(ballCount != balls.size()) throw new IllegalArgumentException("Snapshot of " + ballCount + " balls can not be restored onto " + balls.size());
+
+        int n = ballCount;
+        System.arraycopy(floats, 0, balls.posX, 0, n);
+        System.arraycopy(floats, capacity, balls.posY, 0, n);
+        System.arraycopy(floats, capacity * 2, balls.posZ, 0, n);
+        System.arraycopy(floats, capacity * 3, balls.velX, 0, n);
+        System.arraycopy(floats, capacity * 4, balls.velY, 0, n);
+        System.arraycopy(floats, capacity * 5, balls.velZ, 0, n);
+        System.arraycopy(floats, capacity * 6, balls.spinX, 0, n);
+        System.arraycopy(floats, capacity * 7, balls.spinY, 0, n);
+        System.arraycopy(floats, capacity * 8, balls.spinZ, 0, n);
+
+        int used = (n + 63) >>> 6;
+        System.arraycopy(masks, 0, balls.active, 0, used);
+        System.arraycopy(masks, words, balls.pocketed, 0, used);
+        System.arraycopy(masks, words * 2, balls.moving, 0, used);
+        System.arraycopy(masks, words * 3, balls.awake, 0, used);
+
+        // The counts of the masks are not stored, they are counted again from the masks
+        balls.recount();
+    }
+
+    /*
+     * Stores the game state alongside the balls, called by PoolGame.save() after the balls are saved
+     */
+    void saveGame(int time, int shots, boolean started, boolean ended, boolean canShoot, Shot shot) {
+        this.time = time;
+        this.shots = shots;
+        this.started = started;
+        this.ended = ended;
+        this.canShoot = canShoot;
+
+        int base = capacity * COLUMNS;
+        floats[base] = shot.getPowerX();
+        floats[base + 1] = shot.getPowerZ();
+        floats[base + 2] = shot.getAimX();
+        floats[base + 3] = shot.getAimZ();
+        hasGame = true;
+    }
+
+    /*
+     * Puts the stored shot back into the passed shot
+     */
+    void restoreShot(Shot shot) {
+        int base = capacity * COLUMNS;
+        shot.restore(floats[base], floats[base + 1], floats[base + 2], floats[base + 3]);
+    }
+
+    /*
+     * Forgets what was saved
+     */
+    public void clear() {
+        Arrays.fill(masks, 0L);
+        ballCount = -1;
+        hasGame = false;
+    }
+
+    /*
+     * Returns true once something has been saved into the snapshot
+     */
+    public boolean isSaved() {
+        return ballCount >= 0;
+    }
+
+    /*
+     * Returns true if the snapshot was saved from a PoolGame, with the game state as well as the balls
+     */
+    public boolean hasGame() {
+        return hasGame;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getBallCount() {
+        return ballCount;
+    }
+
+    public int getTime() {
+        return time;
+    }
+
+    public int getShots() {
+        return shots;
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+
+    public boolean isEnded() {
+        return ended;
+    }
+
+    public boolean canShoot() {
+        return canShoot;
+    }
+
+}
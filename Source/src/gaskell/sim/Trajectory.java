@@ -0,0 +1,114 @@
+package gaskell.sim;
+
+/*
+ * @author Connor Gaskell
+ * @description The predicted outcome of a shot, found by the TrajectorySolver.
+ *              The path of the white ball and of the first ball it hits are stored as the points where each ball changes direction
+ *              (cushion bounces and collisions), and the ghost ball is where the white ball is when it first touches the other ball.
+ */
+
+public class Trajectory {
+
+    /*
+     * The points of the white ball's path
+     */
+    final float[] cueX, cueZ;
+    int cueCount = 0;
+
+    /*
+     * The points of the path of the first ball hit
+     */
+    final float[] objectX, objectZ;
+    int objectCount = 0;
+
+    // The id of the first ball hit, -1 if the white ball does not hit a ball
+    int objectBall = -1;
+
+    // The centre of the white ball as it first touches the object ball
+    float ghostX, ghostZ;
+
+    // The power of the shot this is the trajectory of
+    final float powerX, powerZ;
+
+    /*
+     * Constructor passes the power of the shot and the maximum number of points on each path
+     */
+    Trajectory(float powerX, float powerZ, int maxPoints) {
+        this.powerX = powerX;
+        this.powerZ = powerZ;
+        this.cueX = new float[maxPoints];
+        this.cueZ = new float[maxPoints];
+        this.objectX = new float[maxPoints];
+        this.objectZ = new float[maxPoints];
+    }
+
+    /*
+     * Adds a point to the white ball's path, the last point is replaced once the path is full
+     */
+    void addCuePoint(float x, float z) {
+        cueCount = addPoint(cueX, cueZ, cueCount, x, z);
+    }
+
+    /*
+     * Adds a point to the object ball's path, the last point is replaced once the path is full
+     */
+    void addObjectPoint(float x, float z) {
+        objectCount = addPoint(objectX, objectZ, objectCount, x, z);
+    }
+
+    private static int addPoint(float[] xs, float[] zs, int count, float x, float z) {
+        if(count == xs.length) count--;
+        xs[count] = x;
+        zs[count] = z;
+        return count + 1;
+    }
+
+    public int getCuePointCount() {
+        return cueCount;
+    }
+
+    public float getCueX(int i) {
+        return cueX[i];
+    }
+
+    public float getCueZ(int i) {
+        return cueZ[i];
+    }
+
+    public int getObjectPointCount() {
+        return objectCount;
+    }
+
+    public float getObjectX(int i) {
+        return objectX[i];
+    }
+
+    public float getObjectZ(int i) {
+        return objectZ[i];
+    }
+
+    public int getObjectBall() {
+        return objectBall;
+    }
+
+    public boolean hasGhostBall() {
+        return objectBall >= 0;
+    }
+
+    public float getGhostX() {
+        return ghostX;
+    }
+
+    public float getGhostZ() {
+        return ghostZ;
+    }
+
+    public float getPowerX() {
+        return powerX;
+    }
+
+    public float getPowerZ() {
+        return powerZ;
+    }
+
+}
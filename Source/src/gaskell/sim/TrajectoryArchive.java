@@ -0,0 +1,179 @@
+package gaskell.sim;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/*
+ * @author Connor Gaskell
+ * @description Reads a trajectory archive written by TrajectoryArchiveWriter, to find the position of every ball on any tick.
+ *              The archive and its index are memory mapped, so opening even a long game reads nothing up front and the operating system
+ *              only loads the pages which are used. Seeking to a tick is a binary search of the index for the segment holding it,
+ *              then decoding that segment from its keyframe, at most one keyframe interval of ticks.
+ *              The archive is read as it was when it was opened, reopen it to see ticks written since.
+ *              A reader is not thread safe, each thread scrubbing the same archive should open its own.
+ */
+
+public class TrajectoryArchive implements AutoCloseable {
+
+    // The mapped archive and index
+    private final MappedByteBuffer data, index;
+
+    // Channels the files were mapped from
+    private final FileChannel dataChannel, indexChannel;
+
+    // Number of balls in each tick, ticks in a full segment, the quantum of the positions and the number of segments
+    private final int ballCount, keyframeInterval, segmentCount;
+    private final float quantum;
+
+    // Position of the next byte to decode
+    private int position;
+
+    // Quantized positions of the tick being decoded
+    private final int[] quantized;
+
+    // Pocketed mask of the last tick found by seek()
+    private long pocketed;
+
+    /*
+     * Opens and maps the archive and its index
+     */
+    public TrajectoryArchive(Path file) throws IOException {
+        dataChannel = FileChannel.open(file, StandardOpenOption.READ);
+        indexChannel = FileChannel.open(TrajectoryArchiveWriter.indexPath(file), StandardOpenOption.READ);
+        data = dataChannel.map(FileChannel.MapMode.READ_ONLY, 0, dataChannel.size());
+        index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size());
+
+        byte[] magic = new byte[TrajectoryArchiveWriter.MAGIC.length];
+        data.get(0, magic);
+        if(!Arrays.equals(magic, TrajectoryArchiveWriter.MAGIC)) throw new IOException("Not a trajectory archive");
+        if(data.get(3) != TrajectoryArchiveWriter.VERSION) throw new IOException("Unsupported trajectory archive version " + data.get(3));
+
+        ballCount = data.get(4);
+        keyframeInterval = data.getInt(5);
+        quantum = data.getFloat(9);
+        segmentCount = index.capacity() / TrajectoryArchiveWriter.INDEX_ENTRY_SIZE;
+        quantized = new int[ballCount * 3];
+    }
+
+    /*
+     * Finds the position of every ball on the passed tick, storing x, y and z into the arrays (which hold at least getBallCount()).
+     * Returns false if the tick is not in the archive, e.g. before the first tick, after the last or in a gap.
+     */
+    public boolean seek(long tick, float[] x, float[] y, float[] z) {
+        int s = findSegment(tick);
+        if(s < 0) return false;
+
+        int entry = s * TrajectoryArchiveWriter.INDEX_ENTRY_SIZE;
+        long start = index.getLong(entry);
+        int ticks = index.getInt(entry + 16);
+        if(tick >= start + ticks) return false;
+
+        /*
+         * Decode the keyframe, then apply each tick's changes up to the one wanted
+         */
+        position = (int) index.getLong(entry + 8);
+        for(int v = 0; v < quantized.length; v++) {
+            quantized[v] = (int) unzigzag(getVarLong());
+        }
+        pocketed = getVarLong();
+
+        for(long t = start; t < tick; t++) {
+            long moved = getVarLong();
+            for(; moved != 0; moved &= moved - 1) {
+                int v = Long.numberOfTrailingZeros(moved) * 3;
+                quantized[v] += (int) unzigzag(getVarLong());
+                quantized[v + 1] += (int) unzigzag(getVarLong());
+                quantized[v + 2] += (int) unzigzag(getVarLong());
+            }
+            pocketed ^= getVarLong();
+        }
+
+        for(int i = 0; i < ballCount; i++) {
+            x[i] = quantized[i * 3] * quantum;
+            y[i] = quantized[i * 3 + 1] * quantum;
+            z[i] = quantized[i * 3 + 2] * quantum;
+        }
+        return true;
+    }
+
+    /*
+     * Binary search of the index for the last segment starting on or before the tick, -1 if there is none
+     */
+    private int findSegment(long tick) {
+        int low = 0, high = segmentCount - 1, found = -1;
+        while(low <= high) {
+            int middle = (low + high) >>> 1;
+            if(index.getLong(middle * TrajectoryArchiveWriter.INDEX_ENTRY_SIZE) <= tick) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    private long getVarLong() {
+        long value = 0;
+        for(int shift = 0; ; shift += 7) {
+            byte b = data.get(position++);
+            value |= (long) (b & 0x7F) << shift;
+            if(b >= 0) return value;
+        }
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /*
+     * First tick in the archive, -1 if it is empty
+     */
+    public long getFirstTick() {
+        return segmentCount == 0 ? -1 : index.getLong(0);
+    }
+
+    /*
+     * Last tick in the archive, -1 if it is empty
+     */
+    public long getLastTick() {
+        if(segmentCount == 0) return -1;
+        int entry = (segmentCount - 1) * TrajectoryArchiveWriter.INDEX_ENTRY_SIZE;
+        return index.getLong(entry) + index.getInt(entry + 16) - 1;
+    }
+
+    /*
+     * Returns true if the ball was pocketed on the tick last found by seek()
+     */
+    public boolean isPocketed(int ball) {
+        return (pocketed & (1L << ball)) != 0;
+    }
+
+    public int getBallCount() {
+        return ballCount;
+    }
+
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    public float getQuantum() {
+        return quantum;
+    }
+
+    @Override
+    public void close() throws IOException {
+        dataChannel.close();
+        indexChannel.close();
+    }
+
+}
@@ -0,0 +1,69 @@
+package gaskell.sim;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/*
+ * @author Connor Gaskell
+ * @description Builds a trajectory archive from a saved replay, by playing the replay as fast as possible with the game archived,
+ *              then scrubs to random ticks of the archive and reports the size of the archive and the time each seek took.
+ *              Run with: java -cp out gaskell.sim.TrajectoryArchiveTool <replay file> <archive file>
+ */
+
+public class TrajectoryArchiveTool {
+
+    // Number of random ticks to seek to
+    private static final int SEEKS = 100000;
+
+    public static void main(String[] args) throws IOException {
+        if(args.length < 2) {
+            System.out.println("Usage: TrajectoryArchiveTool <replay file> <archive file>");
+            return;
+        }
+
+        TableGeometry table = TableGeometry.standard();
+        Replay replay;
+        try(InputStream in = Files.newInputStream(Paths.get(args[0]))) {
+            replay = Replay.read(in, table);
+        }
+
+        /*
+         * Play the replay with the archive attached, the game thread only copies each tick into the archive's ring
+         */
+        Path archivePath = Paths.get(args[1]);
+        ReplayPlayer player = new ReplayPlayer(replay, table);
+        long start = System.nanoTime();
+        try(TrajectoryArchiveWriter writer = new TrajectoryArchiveWriter(archivePath, player.getGame())) {
+            player.getGame().setArchive(writer);
+            player.playToEnd();
+            player.getGame().setArchive(null);
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println("Played " + replay.getEndTick() + " ticks in " + String.format("%.3f", seconds) + "s, " + writer.getDropped() + " ticks dropped");
+        }
+
+        try(TrajectoryArchive archive = new TrajectoryArchive(archivePath)) {
+            long ticks = archive.getLastTick() - archive.getFirstTick() + 1;
+            long bytes = Files.size(archivePath) + Files.size(TrajectoryArchiveWriter.indexPath(archivePath));
+            System.out.println("Archive: " + ticks + " ticks, " + archive.getSegmentCount() + " segments, " + bytes + " bytes ("
+                    + String.format("%.1f", (double) bytes / ticks) + " bytes per tick)");
+
+            /*
+             * Seek to random ticks
+             */
+            int n = archive.getBallCount();
+            float[] x = new float[n], y = new float[n], z = new float[n];
+            Random random = new Random(1);
+            long seekStart = System.nanoTime();
+            for(int s = 0; s < SEEKS; s++) {
+                archive.seek(archive.getFirstTick() + (long) (random.nextDouble() * ticks), x, y, z);
+            }
+            System.out.println(String.format("%.2f", (System.nanoTime() - seekStart) / 1e3 / SEEKS) + " microseconds per seek");
+        }
+    }
+
+}
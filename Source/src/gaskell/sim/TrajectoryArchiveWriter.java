@@ -0,0 +1,301 @@
+package gaskell.sim;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * @author Connor Gaskell
+ * @description Writes the position of every ball on every tick to an append-only trajectory archive, read back by TrajectoryArchive.
+ *              capture() is called on the thread which steps the game, it only copies the positions into a preallocated ring of ticks
+ *              and returns, so it never waits for the disk and never allocates. A background thread takes the ticks from the ring,
+ *              compresses them and appends them to the file.
+ *              The ticks are stored in segments, each starting with a keyframe of every ball followed by up to keyframeInterval - 1
+ *              ticks stored as changes from the tick before. Positions are quantized to QUANTUM, so the changes are exact and small,
+ *              and only the balls which moved are written, a tick where every ball is still is two bytes.
+ *              An index file (the archive path with ".idx" added) has a fixed size entry for each segment: its first tick, its position in
+ *              the archive, its number of ticks and its length. If the ring is ever full the tick is dropped and counted,
+ *              the next tick starts a new segment so the archive never holds a wrong position, only a gap.
+ *              Archive format, all numbers big endian:
+ *                  "GPT", a version byte, the number of balls (a byte), the keyframe interval (int) and the quantum (float)
+ *                  then the segments, a keyframe is x, y, z of each ball and the pocketed mask, a following tick is the mask of balls
+ *                  which moved, x, y, z changes of each of those balls and the change of the pocketed mask (as an xor).
+ *                  Positions are zigzag encoded variable length integers, masks are variable length longs.
+ */
+
+public class TrajectoryArchiveWriter implements AutoCloseable {
+
+    // Size of a position step in the archive
+    public static final float QUANTUM = 0.0001f;
+
+    // Default number of ticks in a segment
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 64;
+
+    // Number of ticks the ring holds, a little over a minute of play at 60 ticks a second
+    public static final int RING_TICKS = 4096;
+
+    // Largest number of balls an archive can hold, one bit of a mask per ball
+    public static final int MAX_BALLS = 64;
+
+    // Size of an entry in the index file: first tick (long), position (long), number of ticks (int) and length (int)
+    static final int INDEX_ENTRY_SIZE = 24;
+
+    static final byte[] MAGIC = {'G', 'P', 'T'};
+    static final byte VERSION = 1;
+
+    // Number of balls in each tick and ticks in each segment
+    private final int ballCount, keyframeInterval;
+
+    /*
+     * The ring of captured ticks, the world tick, the pocketed mask and x, y, z of every ball for each slot.
+     * head is the next slot the game thread writes and tail the next slot the writer thread reads.
+     */
+    private final long[] ringTick = new long[RING_TICKS];
+    private final long[] ringPocketed = new long[RING_TICKS];
+    private final float[] ringPosition;
+    private volatile long head = 0, tail = 0;
+
+    // Number of ticks dropped because the ring was full
+    private volatile long dropped = 0;
+
+    // The archive and its index
+    private final FileChannel data, index;
+
+    /*
+     * The segment being built by the writer thread, and the quantized positions and mask of the last tick added to it
+     */
+    private ByteBuffer segment;
+    private final ByteBuffer indexEntry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+    private final int[] lastQuantized;
+    private long lastPocketed, lastTick = Long.MIN_VALUE, segmentStart, segmentOffset;
+    private int segmentTicks = 0;
+
+    // Number of ticks written and bytes in the archive
+    private long ticksWritten = 0, bytesWritten = 0;
+
+    // The writer thread, and whether close() has been called
+    private final Thread writer;
+    private volatile boolean closing = false;
+
+    // Error from the writer thread, thrown from close()
+    private volatile IOException failure;
+
+    /*
+     * Constructor passes the archive to create (an existing one is replaced), the number of balls and the ticks in each segment
+     */
+    public TrajectoryArchiveWriter(Path file, int ballCount, int keyframeInterval) throws IOException {
+        if(ballCount > MAX_BALLS) throw new IllegalArgumentException("An archive holds at most " + MAX_BALLS + " balls: " + ballCount);
+        this.ballCount = ballCount;
+        this.keyframeInterval = Math.max(1, keyframeInterval);
+        this.ringPosition = new float[RING_TICKS * ballCount * 3];
+        this.lastQuantized = new int[ballCount * 3];
+
+        // Worst case of every value at its longest, so a segment never needs to grow
+        this.segment = ByteBuffer.allocate(this.keyframeInterval * (ballCount * 3 * 5 + 20) + 16);
+
+        data = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        index = FileChannel.open(indexPath(file), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        ByteBuffer header = ByteBuffer.allocate(13);
+        header.put(MAGIC).put(VERSION).put((byte) ballCount).putInt(this.keyframeInterval).putFloat(QUANTUM);
+        header.flip();
+        writeFully(data, header);
+        bytesWritten = header.capacity();
+
+        writer = new Thread(this::run, "Trajectory archive writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /*
+     * Writer for the balls of a game, with the default segment size
+     */
+    public TrajectoryArchiveWriter(Path file, PoolGame game) throws IOException {
+        this(file, game.getWorld().getBalls().size(), DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /*
+     * Path of the index of an archive
+     */
+    public static Path indexPath(Path file) {
+        return Paths.get(file.toString() + ".idx");
+    }
+
+    /*
+     * Copies the position of every ball into the ring, called by the thread stepping the game after each step.
+     * Returns false if the ring was full and the tick was dropped.
+     */
+    public boolean capture(long tick, BallStateStore balls) {
+        long slotIndex = head;
+        if(slotIndex - tail == RING_TICKS) {
+            dropped++;
+            return false;
+        }
+
+        int slot = (int) (slotIndex % RING_TICKS);
+        int base = slot * ballCount * 3;
+        for(int i = 0; i < ballCount; i++) {
+            ringPosition[base + i * 3] = balls.posX[i];
+            ringPosition[base + i * 3 + 1] = balls.posY[i];
+            ringPosition[base + i * 3 + 2] = balls.posZ[i];
+        }
+        ringTick[slot] = tick;
+        ringPocketed[slot] = balls.pocketed[0];
+
+        // Publishing the new head makes the slot visible to the writer thread
+        head = slotIndex + 1;
+        return true;
+    }
+
+    /*
+     * Writer thread, encodes each captured tick until the writer is closed and the ring is empty
+     */
+    private void run() {
+        try {
+            while(true) {
+                long available = head;
+                if(tail == available) {
+                    if(closing) break;
+                    LockSupport.parkNanos(1_000_000);
+                    continue;
+                }
+
+                for(long t = tail; t < available; t++) {
+                    encode((int) (t % RING_TICKS));
+                    tail = t + 1;
+                }
+            }
+            endSegment();
+        } catch(IOException e) {
+            failure = e;
+        }
+    }
+
+    /*
+     * Adds the tick in the slot to the segment, starting a new segment when the segment is full or a tick was dropped
+     */
+    private void encode(int slot) throws IOException {
+        long tick = ringTick[slot];
+        if(segmentTicks == keyframeInterval || (segmentTicks > 0 && tick != lastTick + 1)) endSegment();
+
+        int base = slot * ballCount * 3;
+        long pocketed = ringPocketed[slot];
+
+        if(segmentTicks == 0) {
+            /*
+             * Keyframe, every ball in full
+             */
+            segmentStart = tick;
+            segmentOffset = bytesWritten;
+            for(int v = 0; v < ballCount * 3; v++) {
+                lastQuantized[v] = quantize(ringPosition[base + v]);
+                putVarLong(segment, zigzag(lastQuantized[v]));
+            }
+            putVarLong(segment, pocketed);
+        } else {
+            /*
+             * The balls which moved, then the change of each of them
+             */
+            long movedMask = 0;
+            for(int i = 0; i < ballCount; i++) {
+                int v = i * 3;
+                if(quantize(ringPosition[base + v]) != lastQuantized[v] || quantize(ringPosition[base + v + 1]) != lastQuantized[v + 1]
+                        || quantize(ringPosition[base + v + 2]) != lastQuantized[v + 2]) {
+                    movedMask |= 1L << i;
+                }
+            }
+            putVarLong(segment, movedMask);
+
+            for(long mask = movedMask; mask != 0; mask &= mask - 1) {
+                int v = Long.numberOfTrailingZeros(mask) * 3;
+                for(int axis = 0; axis < 3; axis++) {
+                    int quantized = quantize(ringPosition[base + v + axis]);
+                    putVarLong(segment, zigzag(quantized - lastQuantized[v + axis]));
+                    lastQuantized[v + axis] = quantized;
+                }
+            }
+            putVarLong(segment, pocketed ^ lastPocketed);
+        }
+
+        lastPocketed = pocketed;
+        lastTick = tick;
+        segmentTicks++;
+        ticksWritten++;
+    }
+
+    /*
+     * Appends the segment to the archive and its entry to the index
+     */
+    private void endSegment() throws IOException {
+        if(segmentTicks == 0) return;
+
+        segment.flip();
+        int length = segment.remaining();
+        writeFully(data, segment);
+        segment.clear();
+        bytesWritten += length;
+
+        indexEntry.clear();
+        indexEntry.putLong(segmentStart).putLong(segmentOffset).putInt(segmentTicks).putInt(length);
+        indexEntry.flip();
+        writeFully(index, indexEntry);
+
+        segmentTicks = 0;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    static int quantize(float value) {
+        return Math.round(value / QUANTUM);
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static void putVarLong(ByteBuffer buffer, long value) {
+        while((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /*
+     * Writes every captured tick and closes the archive, waiting for the writer thread to finish
+     */
+    @Override
+    public void close() throws IOException {
+        closing = true;
+        try {
+            writer.join();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        data.close();
+        index.close();
+        if(failure != null) throw failure;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public long getTicksWritten() {
+        return ticksWritten;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+}
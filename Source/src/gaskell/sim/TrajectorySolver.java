@@ -0,0 +1,265 @@
+package gaskell.sim;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*
+ * @author Connor Gaskell
+ * @description Predicts the path of a shot for the aim preview, on a background thread.
+ *              The shot is simulated on a copy of the table and the path of the white ball and the first ball it hits is recorded,
+ *              a point is added each time a ball turns (a cushion, a collision or the curve left by friction).
+ *              The aim is quantized and each result is cached by its quantized aim, so aiming back over the same spot does not recompute it.
+ *              The cache is cleared whenever the table changes (a shot is taken or the game is reset).
+ *              request() must only be called on the thread which steps the world, in game the behaviour thread, where AimPreview calls it
+ *              each frame. It only copies the table and starts a job when the quantized aim has changed, otherwise it returns the
+ *              trajectory already found. The shot is then simulated on the solver's own thread, on its own copies of the table.
+ */
+
+public class TrajectorySolver {
+
+    // Size of the steps the power is quantized to
+    public static final float AIM_QUANTUM = 0.0005f;
+
+    // Maximum number of ticks a shot is simulated for
+    public static final int MAX_TICKS = 3000;
+
+    // Maximum number of points on each path
+    public static final int MAX_POINTS = 32;
+
+    // Number of trajectories kept in the cache
+    public static final int CACHE_SIZE = 256;
+
+    // Cosine of the turn after which a new point is added to a path
+    private static final float TURN_COSINE = 0.999f;
+
+    // Copy of the table the next job will simulate, only written while no job is running
+    private final PhysicsWorld snapshot;
+
+    // Copy of the table the shot is simulated on, only used by the background thread
+    private final PhysicsWorld scratch;
+
+    // Cache of trajectories by quantized aim, least recently used first
+    private final Map<Long, Trajectory> cache = new LinkedHashMap<Long, Trajectory>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Trajectory> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    // Single background thread the jobs run on
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Trajectory solver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // The job currently running
+    private Future<?> job;
+
+    // Version of the table the cache is for
+    private long cacheVersion = Long.MIN_VALUE;
+
+    // The quantized aim and trajectory last returned by request()
+    private long latestKey = Long.MIN_VALUE;
+    private Trajectory latest;
+
+    /*
+     * Constructor passes the table geometry
+     */
+    public TrajectorySolver(TableGeometry table) {
+        this.snapshot = new PhysicsWorld(table);
+        this.scratch = new PhysicsWorld(table);
+    }
+
+    /*
+     * Returns the trajectory of the passed shot, starting a job to find it if it is not cached.
+     * While the job is running the last trajectory found for this version is returned, null if there is none yet.
+     * The version must change whenever the balls on the table change.
+     */
+    public Trajectory request(PhysicsWorld world, int cueBall, float powerX, float powerZ, long version) {
+        long key = keyOf(powerX, powerZ);
+
+        synchronized(cache) {
+            if(version != cacheVersion) {
+                cache.clear();
+                cacheVersion = version;
+                latestKey = Long.MIN_VALUE;
+
+                // The last trajectory was found on the old table, so it is not shown while the new one is found
+                latest = null;
+            }
+
+            // Nothing to do while the aim stays the same
+            if(key == latestKey) return latest;
+
+            Trajectory cached = cache.get(key);
+            if(cached != null) {
+                latestKey = key;
+                latest = cached;
+                return latest;
+            }
+        }
+
+        /*
+         * Start a job for the new aim, once the last one is done. Until then the last trajectory is kept, and the next call tries again.
+         */
+        if(job == null || job.isDone()) {
+            snapshot.copyFrom(world);
+            long jobVersion = version;
+            float quantizedX = (int) (key >> 32) * AIM_QUANTUM, quantizedZ = (int) key * AIM_QUANTUM;
+
+            job = executor.submit(() -> {
+                scratch.copyFrom(snapshot);
+                Trajectory trajectory = solve(scratch, cueBall, quantizedX, quantizedZ);
+
+                synchronized(cache) {
+                    if(jobVersion == cacheVersion) cache.put(key, trajectory);
+                }
+            });
+        }
+
+        return latest;
+    }
+
+    /*
+     * Combines the quantized power on each axis into a key
+     */
+    private static long keyOf(float powerX, float powerZ) {
+        long quantizedX = Math.round(powerX / AIM_QUANTUM);
+        long quantizedZ = Math.round(powerZ / AIM_QUANTUM);
+        return (quantizedX << 32) | (quantizedZ & 0xFFFFFFFFL);
+    }
+
+    /*
+     * Simulates the shot on the passed world (which is changed) and records the path of the white ball and the first ball it hits
+     */
+    public static Trajectory solve(PhysicsWorld world, int cueBall, float powerX, float powerZ) {
+        Trajectory trajectory = new Trajectory(powerX, powerZ, MAX_POINTS);
+        BallStateStore balls = world.getBalls();
+        TableGeometry table = world.getTable();
+        TableDistanceField field = table.getDistanceField();
+
+        // Where each ball is resting before the shot
+        float[] restX = Arrays.copyOf(balls.posX, balls.size()), restZ = Arrays.copyOf(balls.posZ, balls.size());
+
+        world.strike(cueBall, powerX, powerZ);
+        trajectory.addCuePoint(balls.posX[cueBall], balls.posZ[cueBall]);
+
+        /*
+         * Position and velocity of each ball before the step, and the direction of the path at the last point, for the white ball [0] and object ball [1]
+         */
+        float[] lastX = {balls.posX[cueBall], 0}, lastZ = {balls.posZ[cueBall], 0};
+        float[] lastVX = {powerX, 0}, lastVZ = {powerZ, 0};
+        float[] pathX = {powerX, 0}, pathZ = {powerZ, 0};
+
+        for(int tick = 0; tick < MAX_TICKS; tick++) {
+            world.step();
+
+            /*
+             * The first ball other than the white ball to start moving is the object ball.
+             * The ghost ball is where the white ball, moving from where it was before the step, first touches the object ball where it was resting.
+             */
+            boolean firstHit = false;
+            if(trajectory.objectBall < 0) {
+                for(int i = balls.nextAwake(0); i >= 0; i = balls.nextAwake(i + 1)) {
+                    if(i == cueBall || !balls.isActive(i)) continue;
+
+                    float vx = balls.velX[i], vz = balls.velZ[i];
+                    float length = (float) Math.sqrt(vx * vx + vz * vz);
+                    if(length == 0) continue;
+
+                    float startX = restX[i], startZ = restZ[i];
+                    float t = contactTime(lastX[0] - startX, lastZ[0] - startZ, lastVX[0], lastVZ[0], table.ballRadius * 2);
+                    trajectory.objectBall = i;
+                    trajectory.ghostX = lastX[0] + lastVX[0] * t;
+                    trajectory.ghostZ = lastZ[0] + lastVZ[0] * t;
+                    trajectory.addObjectPoint(startX, startZ);
+                    lastX[1] = startX;
+                    lastZ[1] = startZ;
+                    lastVX[1] = pathX[1] = vx;
+                    lastVZ[1] = pathZ[1] = vz;
+                    firstHit = true;
+                    break;
+                }
+            }
+
+            track(trajectory, balls, field, cueBall, 0, firstHit, lastX, lastZ, lastVX, lastVZ, pathX, pathZ);
+            if(trajectory.objectBall >= 0 && !firstHit) track(trajectory, balls, field, trajectory.objectBall, 1, false, lastX, lastZ, lastVX, lastVZ, pathX, pathZ);
+
+            if(world.isAtRest()) break;
+        }
+
+        /*
+         * End each path where the ball stopped
+         */
+        trajectory.addCuePoint(balls.posX[cueBall], balls.posZ[cueBall]);
+        if(trajectory.objectBall >= 0) trajectory.addObjectPoint(balls.posX[trajectory.objectBall], balls.posZ[trajectory.objectBall]);
+
+        return trajectory;
+    }
+
+    /*
+     * Fraction of a tick at which a ball at the passed offset from a resting ball, moving with the passed velocity, is one diameter from it.
+     * Clamped to the tick, for the rare hit which is not from the white ball's straight line (e.g. it was pushed by another ball).
+     */
+    private static float contactTime(float px, float pz, float vx, float vz, float diameter) {
+        float a = vx * vx + vz * vz;
+        float b = px * vx + pz * vz;
+        float c = px * px + pz * pz - diameter * diameter;
+        float discriminant = b * b - a * c;
+        if(a == 0 || discriminant < 0) return 1.0f;
+
+        float t = (float) ((-b - Math.sqrt(discriminant)) / a);
+        return t < 0 ? 0.0f : t > 1 ? 1.0f : t;
+    }
+
+    /*
+     * Adds a point to the path of the ball if it has turned far enough since the last point.
+     * A bounce off a cushion is placed on the cushion, where the ball's path from before the step reaches it in the distance field
+     * (the same one the world bounces off, including the rounded jaws), the turn at the first hit is placed at the ghost ball.
+     */
+    private static void track(Trajectory trajectory, BallStateStore balls, TableDistanceField field, int i, int path, boolean firstHit,
+                              float[] lastX, float[] lastZ, float[] lastVX, float[] lastVZ, float[] pathX, float[] pathZ) {
+        float x = balls.posX[i], z = balls.posZ[i];
+        float vx = balls.velX[i], vz = balls.velZ[i];
+
+        float speed = (float) Math.sqrt(vx * vx + vz * vz);
+        float pathSpeed = (float) Math.sqrt(pathX[path] * pathX[path] + pathZ[path] * pathZ[path]);
+        if(speed > 0 && pathSpeed > 0 && (vx * pathX[path] + vz * pathZ[path]) < TURN_COSINE * speed * pathSpeed) {
+            float pointX = x, pointZ = z;
+
+            if(firstHit) {
+                pointX = trajectory.ghostX;
+                pointZ = trajectory.ghostZ;
+            } else {
+                // Find where the ball reached a cushion during the step, if it did
+                float t = field.timeOfImpact(lastX[path], lastZ[path], lastVX[path], lastVZ[path]);
+                if(t >= 0 && t <= 1) {
+                    pointX = lastX[path] + lastVX[path] * t;
+                    pointZ = lastZ[path] + lastVZ[path] * t;
+                }
+            }
+
+            if(path == 0) trajectory.addCuePoint(pointX, pointZ); else trajectory.addObjectPoint(pointX, pointZ);
+            pathX[path] = vx;
+            pathZ[path] = vz;
+        }
+
+        lastX[path] = x;
+        lastZ[path] = z;
+        lastVX[path] = vx;
+        lastVZ[path] = vz;
+    }
+
+    /*
+     * Stops the background thread
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+}